@@ -0,0 +1,107 @@
+package com.agh.EventarzEvents.benchmarks;
+
+import com.agh.EventarzEvents.exceptions.EventFullException;
+import com.agh.EventarzEvents.model.Event;
+import com.agh.EventarzEvents.model.EventForm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventModelBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(Event.DATE_PATTERN);
+
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    private String eventDate;
+    private Event event;
+    private List<Event> events;
+    private String firstMember;
+    private String lastMember;
+
+    @Setup
+    public void setUp() throws EventFullException {
+        LocalDateTime now = LocalDateTime.now();
+        eventDate = now.plusDays(3).format(DATE_FORMATTER);
+
+        event = new Event(new EventForm("group", "Benchmark", "", size + 1, now.plusDays(3), now, "organizer", false));
+        for (int i = 0; i < size; i++) {
+            event.join("user" + i);
+        }
+        firstMember = "user0";
+        lastMember = "user" + (size - 1);
+
+        Random random = new Random(42);
+        events = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Event listed = new Event();
+            listed.setEventDate(now.plusMinutes(random.nextInt(100_000) - 50_000));
+            events.add(listed);
+        }
+    }
+
+    // Dates used to be stored as strings and parsed with a formatter built on every call
+    @Benchmark
+    public LocalDateTime parseEventDateNewFormatter() {
+        return LocalDateTime.parse(eventDate, DateTimeFormatter.ofPattern(Event.DATE_PATTERN));
+    }
+
+    @Benchmark
+    public LocalDateTime parseEventDateSharedFormatter() {
+        return LocalDateTime.parse(eventDate, DATE_FORMATTER);
+    }
+
+    @Benchmark
+    public List<Event> sortByEventDate() {
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(Event::compareEventDates);
+        return sorted;
+    }
+
+    @Benchmark
+    public List<Event> checkEventDates() {
+        for (Event listed : events) {
+            listed.checkEventDate();
+        }
+        return events;
+    }
+
+    @Benchmark
+    public boolean checkIfFirstUserIsMember() {
+        return event.checkIfUserIsMember(firstMember);
+    }
+
+    @Benchmark
+    public boolean checkIfLastUserIsMember() {
+        return event.checkIfUserIsMember(lastMember);
+    }
+
+    @Benchmark
+    public boolean checkIfOutsiderIsMember() {
+        return event.checkIfUserIsMember("outsider");
+    }
+
+    // Leaves and joins again, so the participant list keeps its size between invocations
+    @Benchmark
+    public Event leaveAndJoin() throws EventFullException {
+        event.leave(lastMember);
+        event.join(lastMember);
+        return event;
+    }
+}
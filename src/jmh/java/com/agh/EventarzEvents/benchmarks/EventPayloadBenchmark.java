@@ -0,0 +1,100 @@
+package com.agh.EventarzEvents.benchmarks;
+
+import com.agh.EventarzEvents.exceptions.EventFullException;
+import com.agh.EventarzEvents.model.Event;
+import com.agh.EventarzEvents.model.EventForm;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Group listings as the Groups and Application services receive them, in each wire format.
+// Payload sizes are reported as the payloadBytes secondary result.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventPayloadBenchmark {
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    private String format;
+
+    @Param({"20", "200"})
+    private int events;
+
+    @Param({"25"})
+    private int participants;
+
+    private ObjectMapper objectMapper;
+    private List<Event> listing;
+    private byte[] payload;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long payloadBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloadBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws EventFullException, IOException {
+        // Spring's builder outside of Boot, with the one Boot default that matters for events: dates written as text.
+        // The service sets no spring.jackson properties, so the payloads match what the endpoints produce.
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (format.equals("SMILE")) {
+            builder.factory(new SmileFactory());
+        } else if (format.equals("CBOR")) {
+            builder.factory(new CBORFactory());
+        }
+        objectMapper = builder.build();
+
+        LocalDateTime now = LocalDateTime.now();
+        listing = new ArrayList<>();
+        for (int i = 0; i < events; i++) {
+            Event event = new Event(new EventForm("0f6d2ab1c0e34b9b8e1d6a7c5b4f3e21", "Board games night " + i,
+                    "Bring your own snacks, we have the tables and the games.", participants + 5,
+                    now.plusDays(i % 30), now.minusDays(3), "organizer" + i % 7, false));
+            event.setUuid(String.format("8a8081%026x", i));
+            for (int j = 0; j < participants; j++) {
+                event.join("participant" + (i + j) % 400);
+            }
+            event.checkEventDate();
+            listing.add(event);
+        }
+        payload = objectMapper.writeValueAsBytes(listing);
+    }
+
+    @Benchmark
+    public byte[] serialize(PayloadSize payloadSize) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(listing);
+        payloadSize.payloadBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public JsonNode deserialize() throws IOException {
+        return objectMapper.readTree(payload);
+    }
+}
@@ -0,0 +1,109 @@
+package com.agh.EventarzEvents.benchmarks;
+
+import com.agh.EventarzEvents.EventarzEventsApplication;
+import com.agh.EventarzEvents.model.Event;
+import com.agh.EventarzEvents.model.EventForm;
+import com.agh.EventarzEvents.model.EventSummary;
+import com.agh.EventarzEvents.services.EventService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Runs EventService against the embedded profile, an in-memory H2 database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventServiceBenchmark {
+
+    private static final String GROUP_UUID = "benchmark-group";
+    private static final String ORGANIZER = "organizer";
+    private static final String MEMBER = "member";
+
+    @Param({"100", "1000"})
+    private int events;
+
+    @Param({"10"})
+    private int participants;
+
+    private ConfigurableApplicationContext context;
+    private EventService eventService;
+    private String[] uuids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SpringApplication application = new SpringApplication(EventarzEventsApplication.class);
+        application.setAdditionalProfiles("embedded");
+        context = application.run("--server.port=0", "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN");
+        eventService = context.getBean(EventService.class);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<String> createdUuids = new ArrayList<>();
+        for (int i = 0; i < events; i++) {
+            EventForm eventForm = new EventForm(GROUP_UUID, "Benchmark event " + i, "", participants + 1,
+                    now.plusHours(i + 1), now, ORGANIZER, true);
+            String uuid = eventService.createEvent(eventForm).getUuid();
+            eventService.joinEvent(uuid, MEMBER);
+            for (int j = 2; j < participants; j++) {
+                eventService.joinEvent(uuid, "user" + j);
+            }
+            createdUuids.add(uuid);
+        }
+        uuids = createdUuids.toArray(new String[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Event> getEventsByUuidList() {
+        return eventService.getEventsByUuidList(uuids);
+    }
+
+    // Served from the cache after the first invocation
+    @Benchmark
+    public List<Event> getEventsByGroupUuid() {
+        return eventService.getEventsByGroupUuid(GROUP_UUID);
+    }
+
+    @Benchmark
+    public List<EventSummary> getEventSummariesByGroupUuid() {
+        return eventService.getEventSummariesByGroupUuid(GROUP_UUID);
+    }
+
+    @Benchmark
+    public List<Event> getOrganizedEvents() {
+        return eventService.getOrganizedEvents(ORGANIZER);
+    }
+
+    @Benchmark
+    public List<Event> getJoinedEvents() {
+        return eventService.getJoinedEvents(MEMBER);
+    }
+
+    @Benchmark
+    public List<Event> getMyEvents() {
+        return eventService.getMyEvents(MEMBER);
+    }
+
+    @Benchmark
+    public List<Event> getEventsByName() {
+        return eventService.getEventsByName("Benchmark event 1", null);
+    }
+}
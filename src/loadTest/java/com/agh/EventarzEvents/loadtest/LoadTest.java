@@ -0,0 +1,402 @@
+package com.agh.EventarzEvents.loadtest;
+
+import com.agh.EventarzEvents.EventarzEventsApplication;
+import com.agh.EventarzEvents.model.EventForm;
+import com.agh.EventarzEvents.model.ParticipantBatchForm;
+import com.agh.EventarzEvents.services.EventService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Boots the service on the embedded profile, seeds groups, events and participants, then runs a weighted mix of
+// EventController requests from virtual-thread clients. Reports throughput and p50/p99 per endpoint, writes them to
+// the JSON file given as the first argument, and exits with 1 when the error rate or p99 budget is exceeded.
+// Settings are loadtest.* system properties, see ./gradlew loadTest -Dloadtest.duration=PT2M
+public class LoadTest {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    private static final Duration WARMUP = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT60S"));
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 64);
+    private static final int GROUPS = Integer.getInteger("loadtest.groups", 50);
+    private static final int EVENTS_PER_GROUP = Integer.getInteger("loadtest.events-per-group", 40);
+    private static final int PARTICIPANTS_PER_EVENT = Integer.getInteger("loadtest.participants-per-event", 20);
+    private static final int USERS = Integer.getInteger("loadtest.users", 2000);
+    // Few events every client joins and leaves, so they fight over the same rows. They start with only their organizer
+    // and enough seats for half the users, joins mostly succeed and the events only fill up on longer runs.
+    private static final int HOT_EVENTS = Integer.getInteger("loadtest.hot-events", 5);
+    private static final int HOT_EVENT_SEATS = Integer.getInteger("loadtest.hot-event-seats", USERS / 2);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+    private static final long MAX_P99_MILLIS = Long.getLong("loadtest.max-p99-ms", 0);
+    // Overrides spring.threads.virtual.enabled when set, for comparing virtual threads with the Tomcat thread pool
+    private static final String VIRTUAL_THREADS = System.getProperty("loadtest.virtual-threads");
+    // Added to every statement, H2 in memory answers without the network round trip SQL Server queries pay
+    private static final Duration DB_LATENCY = Duration.parse(System.getProperty("loadtest.db-latency", "PT0S"));
+    // Connection pool and bulkhead limits when set, so they can be raised above the request thread limit
+    private static final Integer POOL_SIZE = Integer.getInteger("loadtest.pool-size");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final List<String> groupUuids = new ArrayList<>();
+    private final List<String> eventUuids = new ArrayList<>();
+    private final List<String> hotEventUuids = new ArrayList<>();
+    private String baseUrl;
+    private boolean virtualThreads;
+
+    public static void main(String[] args) throws Exception {
+        File resultsFile = new File(args.length > 0 ? args[0] : "build/reports/loadtest/results.json");
+        SpringApplication application = new SpringApplication(EventarzEventsApplication.class);
+        application.setAdditionalProfiles("embedded");
+        List<String> arguments = new ArrayList<>(Arrays.asList("--server.port=0", "--logging.level.root=WARN",
+                "--logging.level.eventarz.access=WARN"));
+        if (VIRTUAL_THREADS != null) {
+            arguments.add("--spring.threads.virtual.enabled=" + VIRTUAL_THREADS);
+        }
+        if (POOL_SIZE != null) {
+            arguments.add("--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE);
+            for (String bulkhead : Arrays.asList("EventServiceRead", "EventServiceSearch", "EventServiceWrite")) {
+                arguments.add("--resilience4j.bulkhead.instances." + bulkhead + ".maxConcurrentCalls=" + POOL_SIZE);
+            }
+        }
+        if (!DB_LATENCY.isZero()) {
+            application.addInitializers(context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? new DelayedDataSource((DataSource) bean) : bean;
+                }
+            }));
+        }
+        ConfigurableApplicationContext context = application.run(arguments.toArray(new String[0]));
+        boolean passed;
+        try {
+            LoadTest loadTest = new LoadTest();
+            loadTest.baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            loadTest.virtualThreads = context.getEnvironment().getProperty("spring.threads.virtual.enabled",
+                    Boolean.class, false);
+            loadTest.seed(context.getBean(EventService.class));
+            loadTest.defineOperations();
+            loadTest.run(WARMUP);
+            loadTest.operations.values().forEach(Operation::reset);
+            long elapsed = loadTest.run(DURATION);
+            passed = loadTest.report(elapsed, resultsFile);
+        } finally {
+            context.close();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private void seed(EventService eventService) {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int g = 0; g < GROUPS; g++) {
+            String groupUuid = String.format("loadtest-group-%04d", g);
+            groupUuids.add(groupUuid);
+            List<ParticipantBatchForm> batch = new ArrayList<>();
+            for (int e = 0; e < EVENTS_PER_GROUP; e++) {
+                boolean hot = hotEventUuids.size() < HOT_EVENTS && e == 0;
+                EventForm eventForm = new EventForm(groupUuid, "Meetup " + g + "-" + e + " " + randomWord(random),
+                        "Seeded by the load test", hot ? HOT_EVENT_SEATS : PARTICIPANTS_PER_EVENT + 10,
+                        now.plusHours(random.nextInt(1, 24 * 30)), now, user(random), true);
+                String uuid = eventService.createEvent(eventForm).getUuid();
+                eventUuids.add(uuid);
+                if (hot) {
+                    hotEventUuids.add(uuid);
+                    continue;
+                }
+                List<String> joiners = new ArrayList<>();
+                for (int p = 1; p < PARTICIPANTS_PER_EVENT; p++) {
+                    joiners.add(user(random));
+                }
+                batch.add(new ParticipantBatchForm(uuid, joiners, Collections.emptyList()));
+            }
+            eventService.updateParticipants(batch);
+        }
+        System.out.printf("Seeded %d groups, %d events in %d ms%n", GROUPS, eventUuids.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void defineOperations() {
+        addOperation("GET /events/{uuid}", 30, random -> get("/events/" + pick(eventUuids, random)));
+        addOperation("GET /events?groupUuid", 15, random -> get("/events?groupUuid=" + pick(groupUuids, random)));
+        addOperation("GET /events?groupUuid&pageSize", 5,
+                random -> get("/events?pageSize=20&groupUuid=" + pick(groupUuids, random)));
+        addOperation("GET /events?username&home", 10, random -> get("/events?home=true&username=" + user(random)));
+        addOperation("GET /events?memberUsername", 10, random -> get("/events?memberUsername=" + user(random)));
+        addOperation("GET /events?name", 5, random -> get("/events?name=" + encode("Meetup " + random.nextInt(GROUPS))));
+        Operation join = addOperation("POST /events/{uuid}/participants joined", 15, random -> HttpRequest.newBuilder(
+                        uri("/events/" + pick(hotEventUuids, random) + "/participants"))
+                .header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofString(user(random))).build());
+        // Joins rejected because the event is full, reported apart from the successful ones
+        join.rejected = addOperation("POST /events/{uuid}/participants full", 0, join.requests);
+        addOperation("DELETE /events/{uuid}/participants/{username}", 7, random -> HttpRequest.newBuilder(
+                uri("/events/" + pick(hotEventUuids, random) + "/participants/" + user(random))).DELETE().build());
+        addOperation("POST /events", 3, random -> HttpRequest.newBuilder(uri("/events"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(eventFormJson(random))).build());
+    }
+
+    private long run(Duration duration) throws InterruptedException {
+        List<Operation> weighted = new ArrayList<>();
+        for (Operation operation : operations.values()) {
+            for (int i = 0; i < operation.weight; i++) {
+                weighted.add(operation);
+            }
+        }
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Operation operation = weighted.get(random.nextInt(weighted.size()));
+                    HttpRequest request = operation.requests.apply(random);
+                    long requestStart = System.nanoTime();
+                    int status;
+                    try {
+                        status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    Operation outcome = status == 400 && operation.rejected != null ? operation.rejected : operation;
+                    outcome.record(status, System.nanoTime() - requestStart);
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS);
+        return System.nanoTime() - start;
+    }
+
+    private boolean report(long elapsedNanos, File resultsFile) throws Exception {
+        double seconds = elapsedNanos / 1e9;
+        long requests = 0;
+        long errors = 0;
+        long worstP99 = 0;
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        System.out.printf("%-48s %10s %10s %10s %10s %s%n", "endpoint", "req/s", "p50 ms", "p99 ms", "errors", "statuses");
+        for (Operation operation : operations.values()) {
+            long[] latencies = operation.latencies();
+            Arrays.sort(latencies);
+            double p50 = percentile(latencies, 0.50);
+            double p99 = percentile(latencies, 0.99);
+            long operationErrors = operation.errors();
+            requests += latencies.length;
+            errors += operationErrors;
+            worstP99 = Math.max(worstP99, (long) p99);
+            System.out.printf("%-48s %10.1f %10.2f %10.2f %10d %s%n", operation.name, latencies.length / seconds,
+                    p50, p99, operationErrors, operation.statuses);
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("endpoint", operation.name);
+            endpoint.put("requests", latencies.length);
+            endpoint.put("throughput", latencies.length / seconds);
+            endpoint.put("p50Millis", p50);
+            endpoint.put("p99Millis", p99);
+            endpoint.put("errors", operationErrors);
+            endpoint.put("statuses", operation.statuses);
+            endpoints.add(endpoint);
+        }
+        double errorRate = requests == 0 ? 1 : (double) errors / requests;
+        System.out.printf("Total %.1f req/s over %d clients, error rate %.4f, virtual threads %b%n", requests / seconds,
+                CLIENTS, errorRate, virtualThreads);
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("durationSeconds", seconds);
+        results.put("clients", CLIENTS);
+        results.put("virtualThreads", virtualThreads);
+        results.put("dbLatencyMillis", DB_LATENCY.toMillis());
+        results.put("throughput", requests / seconds);
+        results.put("errorRate", errorRate);
+        results.put("endpoints", endpoints);
+        resultsFile.getParentFile().mkdirs();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultsFile, results);
+
+        boolean passed = errorRate <= MAX_ERROR_RATE && (MAX_P99_MILLIS <= 0 || worstP99 <= MAX_P99_MILLIS);
+        if (!passed) {
+            System.out.println("Load test failed: error rate limit " + MAX_ERROR_RATE + ", p99 limit " + MAX_P99_MILLIS + "ms");
+        }
+        return passed;
+    }
+
+    private Operation addOperation(String name, int weight, Function<ThreadLocalRandom, HttpRequest> requests) {
+        Operation operation = new Operation(name, weight, requests);
+        operations.put(name, operation);
+        return operation;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private String eventFormJson(ThreadLocalRandom random) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> eventForm = new LinkedHashMap<>();
+        eventForm.put("groupUuid", pick(groupUuids, random));
+        eventForm.put("name", "Meetup " + randomWord(random));
+        eventForm.put("description", "Created by the load test");
+        eventForm.put("maxParticipants", PARTICIPANTS_PER_EVENT);
+        eventForm.put("eventDate", now.plusDays(random.nextInt(1, 30)).format(DATE_FORMATTER));
+        eventForm.put("publishedDate", now.format(DATE_FORMATTER));
+        eventForm.put("organizerUsername", user(random));
+        eventForm.put("participate", true);
+        try {
+            return objectMapper.writeValueAsString(eventForm);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String pick(List<String> values, ThreadLocalRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String user(ThreadLocalRandom random) {
+        return "user" + random.nextInt(USERS);
+    }
+
+    private static String randomWord(ThreadLocalRandom random) {
+        String[] words = {"board games", "hiking", "book club", "climbing", "concert", "workshop", "picnic"};
+        return words[random.nextInt(words.length)];
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1e6;
+    }
+
+    private static class Operation {
+
+        private final String name;
+        private final int weight;
+        private final Function<ThreadLocalRandom, HttpRequest> requests;
+        private final Map<Integer, Long> statuses = new LinkedHashMap<>();
+        // Records the 400 responses of this operation instead, when set
+        private Operation rejected;
+        private long[] latencies = new long[1024];
+        private int count;
+
+        Operation(String name, int weight, Function<ThreadLocalRandom, HttpRequest> requests) {
+            this.name = name;
+            this.weight = weight;
+            this.requests = requests;
+        }
+
+        // Full events answer joins with 400, that is an expected outcome and not an error
+        synchronized long errors() {
+            long errors = 0;
+            for (Map.Entry<Integer, Long> status : statuses.entrySet()) {
+                if (status.getKey() < 0 || status.getKey() >= 500) {
+                    errors += status.getValue();
+                }
+            }
+            return errors;
+        }
+
+        synchronized void record(int status, long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            statuses.merge(status, 1L, Long::sum);
+        }
+
+        synchronized long[] latencies() {
+            return Arrays.copyOf(latencies, count);
+        }
+
+        synchronized void reset() {
+            count = 0;
+            statuses.clear();
+        }
+    }
+
+    private static class DelayedDataSource extends DelegatingDataSource {
+
+        DelayedDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return delayed(super.getConnection(), Connection.class);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return delayed(super.getConnection(username, password), Connection.class);
+        }
+
+        // Statements created through the connection are wrapped too, their execute methods sleep first
+        private static <T> T delayed(T target, Class<T> type) {
+            Object proxy = Proxy.newProxyInstance(LoadTest.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    Thread.sleep(DB_LATENCY);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof CallableStatement) {
+                    return delayed((CallableStatement) result, CallableStatement.class);
+                } else if (result instanceof PreparedStatement) {
+                    return delayed((PreparedStatement) result, PreparedStatement.class);
+                } else if (result instanceof Statement) {
+                    return delayed((Statement) result, Statement.class);
+                }
+                return result;
+            });
+            return type.cast(proxy);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.agh.EventarzEvents.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// One key=value record per request on the eventarz.access logger, which logback-spring.xml writes through
+// an async appender. Only a sample of the requests is logged, slow and failed ones always are.
+@Component
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger("eventarz.access");
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public AccessLogFilter(@Value("${eventarz.access-log.sample-rate}") double sampleRate,
+                           @Value("${eventarz.access-log.slow-threshold}") Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            int queries = QueryCountInspector.getCount();
+            if (!failed && request.isAsyncStarted()) {
+                // Streamed responses, the status and latency are only known once the response completes
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        logRequest(request, response.getStatus(), start, queries, false);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        logRequest(request, HttpServletResponse.SC_SERVICE_UNAVAILABLE, start, queries, true);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        logRequest(request, response.getStatus(), start, queries, true);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                logRequest(request, response.getStatus(), start, queries, failed);
+            }
+        }
+    }
+
+    private void logRequest(HttpServletRequest request, int status, long start, int queries, boolean failed) {
+        long latency = System.nanoTime() - start;
+        boolean slow = latency >= slowThresholdNanos;
+        if (!failed && !slow && status < 500 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        log.info("method={} uri={} status={} latency_ms={} queries={} slow={} failed={}",
+                request.getMethod(), uri != null ? uri : request.getRequestURI(), status,
+                Duration.ofNanos(latency).toMillis(), queries, slow, failed);
+    }
+}
@@ -0,0 +1,24 @@
+package com.agh.EventarzEvents.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Registered through hibernate.session_factory.statement_inspector, Hibernate creates the instance itself.
+// Counts the statements prepared on the current thread, QueryCountFilter reads and resets the count per request.
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int getCount() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,72 @@
+package com.agh.EventarzEvents.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Enabled by configuring eventarz.datasource.replicas. The primary keeps using spring.datasource and its
+// spring.datasource.hikari pool settings, every replica takes Hikari settings of its own (jdbc-url, username,
+// password, maximum-pool-size, ...). Replicas trail the primary, read-only transactions may see slightly old data.
+@Configuration
+@ConditionalOnProperty("eventarz.datasource.replicas[0].jdbc-url")
+public class ReadReplicaDataSourceConfig {
+
+    private ReadReplicaRoutingDataSource routingDataSource;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (dataSource.getPoolName() == null) {
+            dataSource.setPoolName(ReadReplicaRoutingDataSource.PRIMARY);
+        }
+        return dataSource;
+    }
+
+    @Bean
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                     Environment environment, MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; binder.bind("eventarz.datasource.replicas[" + i + "].jdbc-url", String.class).isBound(); i++) {
+            HikariConfig config = binder.bind("eventarz.datasource.replicas[" + i + "]", HikariConfig.class).get();
+            String key = config.getPoolName() != null ? config.getPoolName() : "replica-" + i;
+            // Started lazily, a replica that is down at startup doesn't keep the service from starting
+            HikariDataSource replica = new HikariDataSource();
+            config.copyStateTo(replica);
+            replica.setPoolName(key);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(key, replica);
+        }
+        routingDataSource = new ReadReplicaRoutingDataSource(primaryDataSource, replicas);
+        return routingDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${eventarz.datasource.replica-check-interval}")
+    public void checkReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicas();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.agh.EventarzEvents.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Read-only transactions go round-robin to the healthy replicas, everything else to the primary.
+// Has to sit behind a LazyConnectionDataSourceProxy, the read-only flag is only set after the transaction began.
+// A replica that fails to hand out a connection is skipped until checkReplicas finds it healthy again.
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> healthyReplicas;
+
+    private final static Logger log = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+
+    public ReadReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.healthyReplicas = new ArrayList<>(replicas.keySet());
+        Map<Object, Object> targetDataSources = new HashMap<>(replicas);
+        targetDataSources.put(PRIMARY, primary);
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String key = (String) determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return primary.getConnection();
+        }
+        try {
+            return replicas.get(key).getConnection();
+        } catch (SQLException e) {
+            markUnhealthy(key, e);
+            return primary.getConnection();
+        }
+    }
+
+    public void checkReplicas() {
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            try (Connection connection = replica.getValue().getConnection()) {
+                if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    healthy.add(replica.getKey());
+                }
+            } catch (SQLException e) {
+                log.debug("Replica " + replica.getKey() + " failed the health check", e);
+            }
+        }
+        if (!healthy.equals(healthyReplicas)) {
+            log.warn("Healthy read replicas changed from " + healthyReplicas + " to " + healthy);
+        }
+        healthyReplicas = healthy;
+    }
+
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    // The replica pools aren't beans, they are closed with the routing data source. The primary is a bean of its own.
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable) {
+                ((AutoCloseable) replica).close();
+            }
+        }
+    }
+
+    private synchronized void markUnhealthy(String key, SQLException e) {
+        List<String> healthy = new ArrayList<>(healthyReplicas);
+        if (healthy.remove(key)) {
+            log.warn("Replica " + key + " is unavailable, its reads go to the primary", e);
+            healthyReplicas = healthy;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.agh.EventarzEvents.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Times every repository method, inherited ones like save and deleteAll included,
+// tagged with repository, method and exception.
+// Methods returning a Stream are only timed until the cursor is opened.
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object timeQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("eventarz.repository")
+                    .tag("repository", repositoryName(joinPoint))
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    // Inherited methods are declared on CrudRepository, the tag names the interface the bean was created for
+    private String repositoryName(ProceedingJoinPoint joinPoint) {
+        Object target = joinPoint.getTarget();
+        return repositoryNames.computeIfAbsent(target.getClass(), targetClass -> {
+            for (Class<?> userInterface : AopProxyUtils.proxiedUserInterfaces(target)) {
+                if (Repository.class.isAssignableFrom(userInterface)
+                        && userInterface.getPackageName().startsWith("com.agh.EventarzEvents")) {
+                    return userInterface.getSimpleName();
+                }
+            }
+            return joinPoint.getSignature().getDeclaringType().getSimpleName();
+        });
+    }
+}
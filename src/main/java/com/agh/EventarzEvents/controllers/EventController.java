@@ -17,19 +17,40 @@ package com.agh.EventarzEvents.controllers;
 
 import com.agh.EventarzEvents.EventarzEventsApplication;
 import com.agh.EventarzEvents.model.Event;
+import com.agh.EventarzEvents.model.EventChangeFeed;
 import com.agh.EventarzEvents.model.EventForm;
+import com.agh.EventarzEvents.model.EventPage;
+import com.agh.EventarzEvents.model.ParticipantBatchForm;
+import com.agh.EventarzEvents.model.ParticipantBatchResult;
+import com.agh.EventarzEvents.model.PurgeResult;
+import com.agh.EventarzEvents.model.EventSummary;
+import com.agh.EventarzEvents.services.EventChangeFeedService;
+import com.agh.EventarzEvents.services.EventDeletionService;
 import com.agh.EventarzEvents.services.EventService;
+import com.agh.EventarzEvents.services.EventStreamService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletResponse;
 import java.util.List;
 import java.util.Map;
 
@@ -37,11 +58,22 @@ import java.util.Map;
 public class EventController {
 
     private final EventService eventService;
+    private final EventStreamService eventStreamService;
+    private final EventChangeFeedService eventChangeFeedService;
+    private final EventDeletionService eventDeletionService;
+    // Streamed events are flushed with the response buffer, not one by one
+    private final ObjectWriter streamWriter;
 
     private final static Logger log = LoggerFactory.getLogger(EventarzEventsApplication.class);
 
-    public EventController(EventService eventService) {
+    public EventController(EventService eventService, EventStreamService eventStreamService,
+                           EventChangeFeedService eventChangeFeedService, EventDeletionService eventDeletionService,
+                           ObjectMapper objectMapper) {
         this.eventService = eventService;
+        this.eventStreamService = eventStreamService;
+        this.eventChangeFeedService = eventChangeFeedService;
+        this.eventDeletionService = eventDeletionService;
+        this.streamWriter = objectMapper.writerFor(Event.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @GetMapping(value = "/events", params = {"organizerUsername"})
@@ -49,24 +81,53 @@ public class EventController {
         return eventService.getOrganizedEvents(organizerUsername);
     }
 
+    @GetMapping(value = "/events", params = {"organizerUsername", "pageSize"})
+    public EventPage getFoundedEventPage(@RequestParam String organizerUsername, @RequestParam int pageSize,
+                                         @RequestParam(required = false) String pageToken) {
+        return eventService.getOrganizedEventPage(organizerUsername, pageSize, pageToken);
+    }
+
     @GetMapping(value = "/events", params = {"memberUsername"})
     public List<Event> getJoinedEvents(@RequestParam String memberUsername) {
         return eventService.getJoinedEvents(memberUsername);
     }
 
+    @GetMapping(value = "/events", params = {"memberUsername", "pageSize"})
+    public EventPage getJoinedEventPage(@RequestParam String memberUsername, @RequestParam int pageSize,
+                                        @RequestParam(required = false) String pageToken) {
+        return eventService.getJoinedEventPage(memberUsername, pageSize, pageToken);
+    }
+
     @GetMapping(value = "/events", params = {"username"})
     public List<Event> getMyEvents(@RequestParam String username) {
         return eventService.getMyEvents(username);
     }
 
+    @GetMapping(value = "/events", params = {"username", "pageSize"})
+    public EventPage getMyEventPage(@RequestParam String username, @RequestParam int pageSize,
+                                    @RequestParam(required = false) String pageToken) {
+        return eventService.getMyEventPage(username, pageSize, pageToken);
+    }
+
+    @GetMapping(value = "/events", params = {"username", "summary"})
+    public List<EventSummary> getMyEventSummaries(@RequestParam String username) {
+        return eventService.getMyEventSummaries(username);
+    }
+
     @GetMapping(value = "/events", params = {"username", "home"})
     public List<Event> getHomeEvents(@RequestParam String username) {
         return eventService.getHomeEvents(username);
     }
 
     @GetMapping(value = "/events", params = {"name"})
-    public List<Event> getEventsByName(@RequestParam String name) {
-        return eventService.getEventsByName(name);
+    public List<Event> getEventsByName(@RequestParam String name, @RequestParam(required = false) Integer limit) {
+        return eventService.getEventsByName(name, limit);
+    }
+
+    @GetMapping(value = "/events", params = {"name", "pageSize"})
+    public EventPage getEventPageByName(@RequestParam String name, @RequestParam int pageSize,
+                                        @RequestParam(required = false) String pageToken) {
+        return eventService.getEventPageByName(name, pageSize, pageToken);
     }
 
     @GetMapping(value = "/events", params = {"uuids"})
@@ -74,9 +135,46 @@ public class EventController {
         return eventService.getEventsByUuidList(uuids);
     }
 
+    @GetMapping(value = "/events", params = {"uuids", "stream"})
+    public ResponseEntity<StreamingResponseBody> streamEventsByUuidList(@RequestParam String[] uuids) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(outputStream -> {
+            try (SequenceWriter sequenceWriter = streamWriter.writeValuesAsArray(outputStream)) {
+                eventStreamService.streamEventsByUuidList(uuids, sequenceWriter::write);
+            }
+        });
+    }
+
+    // Polls are answered with 304 from the validator query alone. A full response carries the ETag of the events it
+    // contains, so a body served from a stale cache entry is never paired with the newer validator.
     @GetMapping(value = "/events", params = {"groupUuid"})
-    public List<Event> getEventsByGroupUuid(@RequestParam String groupUuid) {
-        return eventService.getEventsByGroupUuid(groupUuid);
+    public List<Event> getEventsByGroupUuid(@RequestParam String groupUuid, WebRequest webRequest,
+                                            HttpServletResponse response) {
+        if (webRequest.checkNotModified(eventService.getGroupETag(groupUuid))) {
+            return null;
+        }
+        List<Event> events = eventService.getEventsByGroupUuid(groupUuid);
+        response.setHeader(HttpHeaders.ETAG, EventService.getETag(events));
+        return events;
+    }
+
+    @GetMapping(value = "/events", params = {"groupUuid", "stream"})
+    public ResponseEntity<StreamingResponseBody> streamEventsByGroupUuid(@RequestParam String groupUuid) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(outputStream -> {
+            try (SequenceWriter sequenceWriter = streamWriter.writeValuesAsArray(outputStream)) {
+                eventStreamService.streamEventsByGroupUuid(groupUuid, sequenceWriter::write);
+            }
+        });
+    }
+
+    @GetMapping(value = "/events", params = {"groupUuid", "pageSize"})
+    public EventPage getEventPageByGroupUuid(@RequestParam String groupUuid, @RequestParam int pageSize,
+                                             @RequestParam(required = false) String pageToken) {
+        return eventService.getEventPageByGroupUuid(groupUuid, pageSize, pageToken);
+    }
+
+    @GetMapping(value = "/events", params = {"groupUuid", "summary"})
+    public List<EventSummary> getEventSummariesByGroupUuid(@RequestParam String groupUuid) {
+        return eventService.getEventSummariesByGroupUuid(groupUuid);
     }
 
     @GetMapping(value = "/events", params = {"groupUuids", "counts"})
@@ -89,9 +187,34 @@ public class EventController {
         return eventService.createEvent(eventForm);
     }
 
+    // Long poll: resume with after=cursor and seen=lastId, wait=false returns right away
+    @GetMapping(value = "/events/changes")
+    public EventChangeFeed getChanges(@RequestParam long after, @RequestParam(required = false) Long seen,
+                                      @RequestParam(defaultValue = "500") int limit,
+                                      @RequestParam(defaultValue = "true") boolean wait) {
+        long seenId = seen != null ? seen : after;
+        if (wait) {
+            return eventChangeFeedService.waitForChanges(after, seenId, limit);
+        }
+        return eventChangeFeedService.readChanges(after, seenId, limit);
+    }
+
+    // Reconnecting EventSource clients resume from the Last-Event-ID header
+    @GetMapping(value = "/events/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long cursor = lastEventId != null ? lastEventId : (after != null ? after : 0);
+        return eventChangeFeedService.streamChanges(cursor);
+    }
+
     @GetMapping(value = "/events/{uuid}")
-    public Event getEventByUuid(@PathVariable String uuid) {
-        return eventService.getEventByUuid(uuid);
+    public Event getEventByUuid(@PathVariable String uuid, WebRequest webRequest, HttpServletResponse response) {
+        if (webRequest.checkNotModified(eventService.getEventETag(uuid))) {
+            return null;
+        }
+        Event event = eventService.getEventByUuid(uuid);
+        response.setHeader(HttpHeaders.ETAG, EventService.getETag(event));
+        return event;
     }
 
     @PutMapping(value = "/events/{uuid}")
@@ -100,18 +223,23 @@ public class EventController {
     }
 
     @DeleteMapping(value = "/events", params = {"groupUuid"})
-    public void deleteEventsByGroupUuid(@RequestParam String groupUuid) {
-        eventService.deleteEventsByGroupUuid(groupUuid);
+    public PurgeResult deleteEventsByGroupUuid(@RequestParam String groupUuid) {
+        return eventDeletionService.deleteEventsByGroupUuid(groupUuid);
     }
 
     @DeleteMapping(value = "/events", params = {"groupUuid", "username"})
-    public void removeUserFromEventsByGroupUuid(@RequestParam String groupUuid, @RequestParam String username) {
-        eventService.removeUserFromEventsByGroupUuid(groupUuid, username);
+    public int removeUserFromEventsByGroupUuid(@RequestParam String groupUuid, @RequestParam String username) {
+        return eventService.removeUserFromEventsByGroupUuid(groupUuid, username);
+    }
+
+    @DeleteMapping(value = "/events", params = {"groupUuids", "username"})
+    public int removeUserFromEventsByGroupUuids(@RequestParam String[] groupUuids, @RequestParam String username) {
+        return eventService.removeUserFromEventsByGroupUuids(groupUuids, username);
     }
 
     @DeleteMapping(value = "/events/{uuids}")
-    public void deleteEvents(@PathVariable String[] uuids) {
-        eventService.deleteEvents(uuids);
+    public PurgeResult deleteEvents(@PathVariable String[] uuids) {
+        return eventDeletionService.deleteEvents(uuids);
     }
 
     @GetMapping(value = "/events/{uuid}/groupUuid")
@@ -119,11 +247,21 @@ public class EventController {
         return eventService.getGroupUuid(uuid);
     }
 
+    @GetMapping(value = "/events/{uuid}/participants/{username}")
+    public boolean isParticipant(@PathVariable String uuid, @PathVariable String username) {
+        return eventService.isParticipant(uuid, username);
+    }
+
     @PostMapping(value = "/events/{uuid}/participants")
     public Event joinEvent(@PathVariable String uuid, @RequestBody String username) {
         return eventService.joinEvent(uuid, username);
     }
 
+    @PostMapping(value = "/events/participants")
+    public List<ParticipantBatchResult> updateParticipants(@RequestBody List<ParticipantBatchForm> participantBatchForms) {
+        return eventService.updateParticipants(participantBatchForms);
+    }
+
     @DeleteMapping(value = "/events/{uuid}/participants/{username}")
     public Event leaveEvent(@PathVariable String uuid, @PathVariable String username) {
         return eventService.leaveEvent(uuid, username);
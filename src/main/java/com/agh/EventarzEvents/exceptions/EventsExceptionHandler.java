@@ -1,12 +1,16 @@
 package com.agh.EventarzEvents.exceptions;
 
 import com.agh.EventarzEvents.model.ErrorDTO;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import javax.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
 
 @ControllerAdvice
 public class EventsExceptionHandler {
@@ -17,10 +21,25 @@ public class EventsExceptionHandler {
     }
 
     @ExceptionHandler(EventFullException.class)
-    public ResponseEntity handleEventFullException(EventNotFoundException exception, HttpServletRequest request) {
+    public ResponseEntity handleEventFullException(EventFullException exception, HttpServletRequest request) {
         return getResponse(HttpStatus.BAD_REQUEST, request.getRequestURI(), "Event full!");
     }
 
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ResponseEntity handleInvalidPageRequestException(InvalidPageRequestException exception, HttpServletRequest request) {
+        return getResponse(HttpStatus.BAD_REQUEST, request.getRequestURI(), exception.getMessage());
+    }
+
+    @ExceptionHandler({BulkheadFullException.class, CallNotPermittedException.class})
+    public ResponseEntity handleRejectedCall(Exception exception, HttpServletRequest request) {
+        return getResponse(HttpStatus.SERVICE_UNAVAILABLE, request.getRequestURI(), "Service busy, try again later!");
+    }
+
+    @ExceptionHandler({QueryTimeoutException.class, TransactionTimedOutException.class})
+    public ResponseEntity handleTimeout(Exception exception, HttpServletRequest request) {
+        return getResponse(HttpStatus.SERVICE_UNAVAILABLE, request.getRequestURI(), "Request timed out!");
+    }
+
     private ResponseEntity<ErrorDTO> getResponse(HttpStatus status, String requestURI, String message) {
         ErrorDTO errorDTO = new ErrorDTO(status, requestURI, message);
         return ResponseEntity.status(status).body(errorDTO);
@@ -1,25 +1,32 @@
 package com.agh.EventarzEvents.model;
 
 import com.agh.EventarzEvents.exceptions.EventFullException;
+import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.OptimisticLock;
 
-import javax.persistence.CascadeType;
-import javax.persistence.Column;
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
-import javax.persistence.OneToMany;
-import javax.persistence.Table;
-import javax.persistence.Transient;
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MapKey;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -28,36 +35,49 @@ import java.util.List;
 @Table(name = "events")
 public class Event {
 
+    // Wire format of eventDate and publishedDate, the database stores them as datetime2
+    public static final String DATE_PATTERN = "dd-MM-yyyy HH:mm";
+
     @Id
-    @GeneratedValue(generator = "system-uuid")
-    @GenericGenerator(name = "system-uuid", strategy = "uuid")
+    @GeneratedValue(strategy = GenerationType.UUID)
     private String uuid;
     private String name;
     private String description;
     @Column(name = "max_participants")
     private int maxParticipants;
     @Column(name = "event_date")
-    private String eventDate;
-    @Transient
-    @JsonIgnore
-    private LocalDateTime eventDateObject;
+    @JsonFormat(pattern = DATE_PATTERN)
+    private LocalDateTime eventDate;
     @Column(name = "published_date")
-    private String publishedDate;
-    @Transient
-    @JsonIgnore
-    private LocalDateTime publishedDateObject;
+    @JsonFormat(pattern = DATE_PATTERN)
+    private LocalDateTime publishedDate;
     @Transient
     private boolean happened;
     @Transient
     @JsonIgnore
     private boolean expired;
+    // Maintained with guarded bulk updates in EventRepository, never written from the entity
+    @Column(name = "participant_count", updatable = false)
+    @JsonIgnore
+    private int participantCount;
+    // Incremented by every change, including the bulk participant count updates in EventRepository
+    @Version
+    @JsonIgnore
+    private long version;
     @Column(name = "organizer_username")
     private String organizerUsername;
     @Column(name = "group_uuid")
     private String groupUuid;
-    @JsonManagedReference
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
-    private List<Participant> participants;
+    // List endpoints initialize participants for up to this many events per query instead of one query per event
+    @BatchSize(size = 250)
+    // Keyed by username, which is unique per event (uk_participants_event_username)
+    @MapKey(name = "username")
+    @OneToMany(mappedBy = "event", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Membership changes bump the version through the participant count updates, a changed collection
+    // would otherwise bump it again with a full-row update of the event
+    @OptimisticLock(excluded = true)
+    @Getter(AccessLevel.NONE)
+    private Map<String, Participant> participants;
 
     public Event(EventForm eventForm) {
         this.name = eventForm.getName();
@@ -67,55 +87,58 @@ public class Event {
         this.maxParticipants = eventForm.getMaxParticipants();
         this.organizerUsername = eventForm.getOrganizerUsername();
         this.groupUuid = eventForm.getGroupUuid();
-        this.participants = new ArrayList<>();
+        this.participants = new LinkedHashMap<>();
+    }
+
+    // Serialized as a list, like before the participants were keyed by username
+    @JsonManagedReference
+    public Collection<Participant> getParticipants() {
+        return this.participants.values();
+    }
+
+    @JsonIgnore
+    public Map<String, Participant> getParticipantMap() {
+        return this.participants;
     }
 
-    public LocalDateTime getEventDateObject() {
-        if (eventDateObject == null) {
-            DateTimeFormatter dtf = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
-            eventDateObject = LocalDateTime.parse(eventDate, dtf);
+    // Detached copy with copies of the participants. Cached events are only ever handed out as copies,
+    // so nothing a request does to its events reaches the cache or the other requests.
+    public Event copy() {
+        Event copy = new Event(uuid, name, description, maxParticipants, eventDate, publishedDate, happened, expired,
+                participantCount, version, organizerUsername, groupUuid, new LinkedHashMap<>());
+        for (Participant participant : this.participants.values()) {
+            copy.participants.put(participant.getUsername(),
+                    new Participant(participant.getUuid(), copy, participant.getUsername()));
         }
-        return eventDateObject;
+        return copy;
     }
 
     public void join(String username) throws EventFullException {
+        if (this.participants.containsKey(username)) {
+            return;
+        }
         if (this.participants.size() >= this.maxParticipants) {
             throw new EventFullException("Event " + this.uuid + " is already full!");
         }
-        this.participants.add(new Participant(this, username));
+        this.participants.put(username, new Participant(this, username));
     }
 
     public void leave(String username) {
-        for (Participant participant : this.participants) {
-            if (participant.getUsername().equals(username)) {
-                this.participants.remove(participant);
-                return;
-            }
-        }
+        this.participants.remove(username);
     }
 
     public boolean checkIfUserIsMember(String username) {
-        for (Participant participant : this.participants) {
-            if (participant.getUsername().equals(username)) {
-                return true;
-            }
-        }
-        return false;
+        return this.participants.containsKey(username);
     }
 
 
     public void checkEventDate() {
-        this.setHappened(this.getEventDateObject().isBefore(LocalDateTime.now()));
-        this.setExpired(this.getEventDateObject().isBefore(LocalDateTime.now().minusDays(1)));
+        LocalDateTime now = LocalDateTime.now();
+        this.setHappened(this.eventDate.isBefore(now));
+        this.setExpired(this.eventDate.isBefore(now.minusDays(1)));
     }
 
     public static int compareEventDates(Event a, Event b) {
-        if (a.getEventDateObject().isBefore(b.getEventDateObject())) {
-            return -1;
-        } else if (b.getEventDateObject().isBefore(a.getEventDateObject())) {
-            return 1;
-        } else {
-            return 0;
-        }
+        return a.getEventDate().compareTo(b.getEventDate());
     }
 }
@@ -0,0 +1,43 @@
+package com.agh.EventarzEvents.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "event_change")
+@Table(name = "event_changes")
+public class EventChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private EventChangeType type;
+    @Column(name = "event_uuid")
+    private String eventUuid;
+    @Column(name = "group_uuid")
+    private String groupUuid;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public EventChange(EventChangeType type, String eventUuid, String groupUuid) {
+        this.type = type;
+        this.eventUuid = eventUuid;
+        this.groupUuid = groupUuid;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,21 @@
+package com.agh.EventarzEvents.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventChangeFeed {
+
+    private List<EventChange> changes;
+    // Resume point for the next read. It only moves past settled changes, so the newer ones can be delivered again.
+    private long cursor;
+    // Highest change id delivered so far, long polls wait for a change after it
+    private long lastId;
+    // Changes after the cursor were already pruned, the consumer has to reload its state
+    private boolean reset;
+}
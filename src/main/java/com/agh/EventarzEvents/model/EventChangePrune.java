@@ -0,0 +1,34 @@
+package com.agh.EventarzEvents.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "event_change_prune")
+@Table(name = "event_change_prunes")
+public class EventChangePrune {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "pruned_through", nullable = false)
+    private long prunedThrough;
+    @Column(name = "pruned_at", nullable = false)
+    private LocalDateTime prunedAt;
+
+    public EventChangePrune(long prunedThrough) {
+        this.prunedThrough = prunedThrough;
+        this.prunedAt = LocalDateTime.now();
+    }
+}
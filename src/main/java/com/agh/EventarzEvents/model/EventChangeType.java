@@ -0,0 +1,13 @@
+package com.agh.EventarzEvents.model;
+
+public enum EventChangeType {
+    CREATED,
+    UPDATED,
+    JOINED,
+    LEFT,
+    // Batch of joins and leaves, see EventService.updateParticipants
+    PARTICIPANTS_UPDATED,
+    DELETED,
+    // Purged by EventExpirationService
+    EXPIRED
+}
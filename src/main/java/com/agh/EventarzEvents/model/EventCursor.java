@@ -0,0 +1,37 @@
+package com.agh.EventarzEvents.model;
+
+import com.agh.EventarzEvents.exceptions.InvalidPageRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Position in a list ordered by (eventDate, uuid), passed to clients as an opaque page token
+@Data
+@AllArgsConstructor
+public class EventCursor {
+
+    private LocalDateTime eventDate;
+    private String uuid;
+
+    public static EventCursor after(Event event) {
+        return new EventCursor(event.getEventDate(), event.getUuid());
+    }
+
+    public String encode() {
+        String token = eventDate + "|" + uuid;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static EventCursor decode(String pageToken) throws InvalidPageRequestException {
+        try {
+            String token = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            int separator = token.indexOf('|');
+            return new EventCursor(LocalDateTime.parse(token.substring(0, separator)), token.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new InvalidPageRequestException("Invalid page token!");
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.agh.EventarzEvents.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -13,8 +16,10 @@ public class EventForm {
     private String name;
     private String description;
     private int maxParticipants;
-    private String eventDate;
-    private String publishedDate;
+    @JsonFormat(pattern = Event.DATE_PATTERN)
+    private LocalDateTime eventDate;
+    @JsonFormat(pattern = Event.DATE_PATTERN)
+    private LocalDateTime publishedDate;
     private String organizerUsername;
     private boolean participate;
 }
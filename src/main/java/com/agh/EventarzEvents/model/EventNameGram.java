@@ -0,0 +1,45 @@
+package com.agh.EventarzEvents.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+// Lowercase trigram of an event name, names shorter than 3 characters are stored whole
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "event_name_gram")
+@Table(name = "event_name_grams", indexes = @Index(name = "ix_event_name_grams_gram", columnList = "gram, event_uuid"))
+public class EventNameGram {
+
+    public static final int GRAM_LENGTH = 3;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String uuid;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "event_uuid", nullable = false)
+    // Removed together with the event, including by bulk deletes
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Event event;
+    @Column(length = GRAM_LENGTH, nullable = false)
+    private String gram;
+
+    public EventNameGram(Event event, String gram) {
+        this.event = event;
+        this.gram = gram;
+    }
+}
@@ -0,0 +1,17 @@
+package com.agh.EventarzEvents.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventPage {
+
+    private List<Event> events;
+    // Null on the last page
+    private String nextPageToken;
+}
@@ -0,0 +1,40 @@
+package com.agh.EventarzEvents.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Event card data, participant list replaced with its size
+@Data
+@NoArgsConstructor
+public class EventSummary {
+
+    private String uuid;
+    private String name;
+    private String description;
+    private int maxParticipants;
+    @JsonFormat(pattern = Event.DATE_PATTERN)
+    private LocalDateTime eventDate;
+    @JsonFormat(pattern = Event.DATE_PATTERN)
+    private LocalDateTime publishedDate;
+    private boolean happened;
+    private String organizerUsername;
+    private String groupUuid;
+    private int participantCount;
+
+    public EventSummary(String uuid, String name, String description, int maxParticipants, LocalDateTime eventDate,
+                        LocalDateTime publishedDate, String organizerUsername, String groupUuid, int participantCount) {
+        this.uuid = uuid;
+        this.name = name;
+        this.description = description;
+        this.maxParticipants = maxParticipants;
+        this.eventDate = eventDate;
+        this.publishedDate = publishedDate;
+        this.happened = eventDate.isBefore(LocalDateTime.now());
+        this.organizerUsername = organizerUsername;
+        this.groupUuid = groupUuid;
+        this.participantCount = participantCount;
+    }
+}
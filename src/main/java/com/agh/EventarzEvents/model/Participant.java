@@ -3,28 +3,33 @@ package com.agh.EventarzEvents.model;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
+import lombok.ToString;
 
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
-import javax.persistence.ManyToOne;
-import javax.persistence.Table;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity(name = "participant")
-@Table(name = "participants")
+@Table(name = "participants", uniqueConstraints = @UniqueConstraint(columnNames = {"event_uuid", "username"}))
 public class Participant {
 
     @Id
-    @GeneratedValue(generator = "system-uuid")
-    @GenericGenerator(name = "system-uuid", strategy = "uuid")
+    @GeneratedValue(strategy = GenerationType.UUID)
     private String uuid;
     @JsonBackReference
     @ManyToOne
+    // Event hashes its participants, following the reference back would recurse
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Event event;
     private String username;
 
@@ -0,0 +1,18 @@
+package com.agh.EventarzEvents.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParticipantBatchForm {
+
+    private String eventUuid;
+    private List<String> join = new ArrayList<>();
+    private List<String> leave = new ArrayList<>();
+}
@@ -0,0 +1,15 @@
+package com.agh.EventarzEvents.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParticipantBatchResult {
+
+    private String eventUuid;
+    private String username;
+    private ParticipantOutcome outcome;
+}
@@ -0,0 +1,10 @@
+package com.agh.EventarzEvents.model;
+
+public enum ParticipantOutcome {
+    JOINED,
+    ALREADY_MEMBER,
+    FULL,
+    LEFT,
+    NOT_MEMBER,
+    EVENT_NOT_FOUND
+}
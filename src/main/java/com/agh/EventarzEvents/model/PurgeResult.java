@@ -0,0 +1,19 @@
+package com.agh.EventarzEvents.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurgeResult {
+
+    private int events;
+    private int participants;
+
+    public void add(PurgeResult other) {
+        this.events += other.getEvents();
+        this.participants += other.getParticipants();
+    }
+}
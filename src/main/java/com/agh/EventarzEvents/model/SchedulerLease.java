@@ -0,0 +1,27 @@
+package com.agh.EventarzEvents.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "scheduler_lease")
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+}
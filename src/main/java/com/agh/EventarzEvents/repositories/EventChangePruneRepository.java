@@ -0,0 +1,18 @@
+package com.agh.EventarzEvents.repositories;
+
+import com.agh.EventarzEvents.model.EventChangePrune;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EventChangePruneRepository extends CrudRepository<EventChangePrune, Long> {
+
+    @Query("SELECT MAX(p.prunedThrough) FROM event_change_prune p")
+    Long findPrunedThrough();
+
+    @Modifying
+    @Query("DELETE FROM event_change_prune p WHERE p.prunedThrough < :prunedThrough")
+    int deleteOlderThan(long prunedThrough);
+}
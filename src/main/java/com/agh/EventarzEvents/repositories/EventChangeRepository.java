@@ -0,0 +1,27 @@
+package com.agh.EventarzEvents.repositories;
+
+import com.agh.EventarzEvents.model.EventChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventChangeRepository extends CrudRepository<EventChange, Long> {
+
+    List<EventChange> findByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    @Query("SELECT MAX(c.id) FROM event_change c")
+    Long findLatestId();
+
+    @Query("SELECT MAX(c.id) FROM event_change c WHERE c.createdAt < :before")
+    Long findLatestIdBefore(LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM event_change c WHERE c.id <= :id")
+    int deleteThrough(long id);
+}
@@ -0,0 +1,33 @@
+package com.agh.EventarzEvents.repositories;
+
+import com.agh.EventarzEvents.model.EventNameGram;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventNameGramRepository extends CrudRepository<EventNameGram, String> {
+
+    @Query("SELECT g.event.uuid FROM event_name_gram g WHERE g.gram IN :grams AND (g.event.eventDate > :afterDate "
+            + "OR (g.event.eventDate = :afterDate AND g.event.uuid > :afterUuid)) "
+            + "GROUP BY g.event.uuid, g.event.eventDate HAVING COUNT(DISTINCT g.gram) = :gramCount "
+            + "ORDER BY g.event.eventDate, g.event.uuid")
+    List<String> findEventUuidPageByGrams(Collection<String> grams, long gramCount, LocalDateTime afterDate,
+                                          String afterUuid, Pageable pageable);
+
+    @Query("SELECT g.event.uuid FROM event_name_gram g WHERE g.gram LIKE :prefix ESCAPE '!' AND (g.event.eventDate > :afterDate "
+            + "OR (g.event.eventDate = :afterDate AND g.event.uuid > :afterUuid)) "
+            + "GROUP BY g.event.uuid, g.event.eventDate ORDER BY g.event.eventDate, g.event.uuid")
+    List<String> findEventUuidPageByGramPrefix(String prefix, LocalDateTime afterDate, String afterUuid,
+                                               Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM event_name_gram g WHERE g.event.uuid = :eventUuid")
+    int deleteByEventUuid(String eventUuid);
+}
@@ -1,46 +1,188 @@
 package com.agh.EventarzEvents.repositories;
 
 import com.agh.EventarzEvents.model.Event;
+import com.agh.EventarzEvents.model.EventSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface EventRepository extends CrudRepository<Event, String> {
 
+    // Keyset condition for pages ordered by (eventDate, uuid)
+    String AFTER_CURSOR = "(e.eventDate > :afterDate OR (e.eventDate = :afterDate AND e.uuid > :afterUuid))";
+
+    @EntityGraph(attributePaths = "participants")
     Event findByUuid(String uuid);
 
-    List<Event> findByUuidIn(List<String> uuids);
+    // Name search rank: exact name, then name prefix, then word prefix, then any other substring.
+    // The pattern is the search term escaped for LIKE ... ESCAPE '!'.
+    // No index orders by the rank, so every event matching the grams is loaded and ranked before the page is cut.
+    // The grams keep that set to the events containing the term, its size still grows with how common the term is.
+    String NAME_RANK = "CASE WHEN LOWER(e.name) = :term THEN 0 "
+            + "WHEN LOWER(e.name) LIKE CONCAT(:pattern, '%') ESCAPE '!' THEN 1 "
+            + "WHEN LOWER(e.name) LIKE CONCAT('% ', :pattern, '%') ESCAPE '!' THEN 2 ELSE 3 END";
+
+    // Names containing the term, narrowed down through events having every one of its grams
+    @Query("SELECT e FROM event e WHERE e.eventDate >= :after AND LOWER(e.name) LIKE CONCAT('%', :pattern, '%') ESCAPE '!' "
+            + "AND e.uuid IN (SELECT g.event.uuid FROM event_name_gram g WHERE g.gram IN :grams "
+            + "GROUP BY g.event.uuid HAVING COUNT(DISTINCT g.gram) = :gramCount) "
+            + "ORDER BY " + NAME_RANK + ", e.eventDate, e.uuid")
+    List<Event> findByNameGrams(Collection<String> grams, long gramCount, String term, String pattern,
+                                LocalDateTime after, Pageable pageable);
+
+    // Terms shorter than a gram, every gram starting with the term marks a position it occurs at
+    @Query("SELECT e FROM event e WHERE e.eventDate >= :after "
+            + "AND e.uuid IN (SELECT g.event.uuid FROM event_name_gram g WHERE g.gram LIKE CONCAT(:pattern, '%') ESCAPE '!') "
+            + "ORDER BY " + NAME_RANK + ", e.eventDate, e.uuid")
+    List<Event> findByNameGramPrefix(String term, String pattern, LocalDateTime after, Pageable pageable);
+
+    @Query("SELECT e FROM event e WHERE e.uuid IN :uuids AND e.eventDate >= :after ORDER BY e.eventDate")
+    List<Event> findByUuidIn(List<String> uuids, LocalDateTime after);
 
-    List<Event> findByNameLikeIgnoreCase(String regex);
+    // Holds the event row until the transaction ends, the participants aren't loaded
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM event e WHERE e.uuid = :uuid")
+    Event findByUuidForUpdate(String uuid);
+
+    // ETag validators, neither loads the events or their participants
+    @Query("SELECT e.version, e.eventDate FROM event e WHERE e.uuid = :uuid")
+    List<Object[]> findVersionByUuid(String uuid);
+
+    // Uuid, version and date of every event in the group, covered by ix_events_group_uuid_event_date
+    @Query("SELECT e.uuid, e.version, e.eventDate FROM event e WHERE e.groupUuid = :groupUuid AND e.eventDate >= :after")
+    List<Object[]> findVersionsByGroupUuid(String groupUuid, LocalDateTime after);
 
     @Query("SELECT e.groupUuid FROM event e WHERE e.uuid = :uuid")
     String findGroupUuidByUuid(String uuid);
 
-    List<Event> findByGroupUuid(String groupUuid);
+    @Query("SELECT e.uuid, e.groupUuid FROM event e WHERE e.uuid IN :uuids")
+    List<Object[]> findGroupUuidsByUuidIn(List<String> uuids);
+
+    @Query("SELECT e FROM event e WHERE e.groupUuid = :groupUuid AND e.eventDate >= :after ORDER BY e.eventDate")
+    List<Event> findByGroupUuid(String groupUuid, LocalDateTime after);
 
-    @Query("SELECT COUNT(*) FROM event e WHERE e.groupUuid = :groupUuid")
-    int findEventCountByGroupUuid(String groupUuid);
+    @Query("SELECT new com.agh.EventarzEvents.model.EventSummary(e.uuid, e.name, e.description, e.maxParticipants, "
+            + "e.eventDate, e.publishedDate, e.organizerUsername, e.groupUuid, SIZE(e.participants)) "
+            + "FROM event e WHERE e.groupUuid = :groupUuid AND e.eventDate >= :after ORDER BY e.eventDate")
+    List<EventSummary> findSummariesByGroupUuid(String groupUuid, LocalDateTime after);
+
+    @Query("SELECT new com.agh.EventarzEvents.model.EventSummary(e.uuid, e.name, e.description, e.maxParticipants, "
+            + "e.eventDate, e.publishedDate, e.organizerUsername, e.groupUuid, SIZE(e.participants)) "
+            + "FROM event e WHERE (e.organizerUsername = :username "
+            + "OR e.uuid IN (SELECT p.event.uuid FROM participant p WHERE p.username = :username)) "
+            + "AND e.eventDate >= :after ORDER BY e.eventDate")
+    List<EventSummary> findMyEventSummaries(String username, LocalDateTime after);
+
+    @Query("SELECT e.groupUuid, COUNT(e) FROM event e WHERE e.groupUuid IN :groupUuids AND e.eventDate >= :after "
+            + "GROUP BY e.groupUuid")
+    List<Object[]> findEventCountsByGroupUuids(List<String> groupUuids, LocalDateTime after);
 
     @Modifying
     void deleteByUuid(String uuid);
 
-    @Modifying
-    void deleteByUuidIn(List<String> uuids);
+    // Chunks of a group delete, deleted chunks drop out of the next page
+    @Query("SELECT e.uuid FROM event e WHERE e.groupUuid = :groupUuid")
+    List<String> findUuidsByGroupUuid(String groupUuid, Pageable pageable);
 
-    @Modifying
-    void deleteByGroupUuid(String groupUuid);
+    @Query("SELECT e FROM event e WHERE e.organizerUsername = :username AND e.eventDate >= :after ORDER BY e.eventDate")
+    List<Event> findOrganizedEvents(String username, LocalDateTime after);
+
+    // Home feed, organized and joined events in a window. Backed by ix_events_organizer_username_event_date
+    // and ix_participants_username_event_uuid, both sides are range seeks on the username.
+    @Query("SELECT e FROM event e WHERE (e.organizerUsername = :username "
+            + "OR e.uuid IN (SELECT p.event.uuid FROM participant p WHERE p.username = :username)) "
+            + "AND e.eventDate >= :after AND e.eventDate < :before ORDER BY e.eventDate, e.uuid")
+    List<Event> findHomeEvents(String username, LocalDateTime after, LocalDateTime before, Pageable pageable);
 
-    @Query("SELECT e FROM event e WHERE e.organizerUsername = :username")
-    List<Event> findOrganizedEvents(String username);
+    @Query("SELECT e FROM event e INNER JOIN e.participants ep WHERE ep.username = :username AND e.eventDate >= :after ORDER BY e.eventDate")
+    List<Event> findJoinedEvents(String username, LocalDateTime after);
 
-    @Query("FROM event e INNER JOIN e.participants ep WHERE ep.username = :username")
-    List<Event> findJoinedEvents(String username);
+    // Organized and joined events with their participants in one statement. Hibernate deduplicates
+    // the fetch-joined rows in memory, so no DISTINCT is needed in SQL.
+    @Query("SELECT e FROM event e LEFT JOIN FETCH e.participants "
+            + "WHERE (e.organizerUsername = :username "
+            + "OR e.uuid IN (SELECT p.event.uuid FROM participant p WHERE p.username = :username)) "
+            + "AND e.eventDate >= :after ORDER BY e.eventDate")
+    List<Event> findMyEvents(String username, LocalDateTime after);
 
     @Modifying
     @Query("DELETE FROM event e WHERE e.groupUuid = :groupUuid AND e.organizerUsername = :username")
     void deleteFromGroupByOrganizerUsername(String groupUuid, String username);
+
+    // Returns 0 when the event is full or doesn't exist
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE event e SET e.participantCount = e.participantCount + 1, e.version = e.version + 1 "
+            + "WHERE e.uuid = :uuid AND e.participantCount < e.maxParticipants")
+    int incrementParticipantCount(String uuid);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE event e SET e.participantCount = e.participantCount - 1, e.version = e.version + 1 "
+            + "WHERE e.uuid = :uuid AND e.participantCount > 0")
+    int decrementParticipantCount(String uuid);
+
+    // Flushes first, pending participant inserts would be lost otherwise
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE event e SET e.participantCount = e.participantCount + :delta, e.version = e.version + 1 "
+            + "WHERE e.uuid = :uuid")
+    int addToParticipantCount(String uuid, int delta);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE event e SET e.participantCount = e.participantCount - 1, e.version = e.version + 1 "
+            + "WHERE e.groupUuid IN :groupUuids "
+            + "AND EXISTS (SELECT p FROM participant p WHERE p.event.uuid = e.uuid AND p.username = :username)")
+    int decrementParticipantCountsOfMember(List<String> groupUuids, String username);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE event e SET e.participantCount = (SELECT COUNT(p) FROM participant p WHERE p.event.uuid = e.uuid), "
+            + "e.version = e.version + 1 "
+            + "WHERE e.uuid = :uuid")
+    int refreshParticipantCount(String uuid);
+
+    @Query("SELECT e FROM event e WHERE e.groupUuid = :groupUuid AND " + AFTER_CURSOR + " ORDER BY e.eventDate, e.uuid")
+    List<Event> findPageByGroupUuid(String groupUuid, LocalDateTime afterDate, String afterUuid, Pageable pageable);
+
+    @Query("SELECT e FROM event e WHERE e.organizerUsername = :username AND " + AFTER_CURSOR
+            + " ORDER BY e.eventDate, e.uuid")
+    List<Event> findOrganizedEventPage(String username, LocalDateTime afterDate, String afterUuid, Pageable pageable);
+
+    @Query("SELECT e FROM event e INNER JOIN e.participants ep WHERE ep.username = :username AND " + AFTER_CURSOR
+            + " ORDER BY e.eventDate, e.uuid")
+    List<Event> findJoinedEventPage(String username, LocalDateTime afterDate, String afterUuid, Pageable pageable);
+
+    @Query("SELECT e FROM event e WHERE (e.organizerUsername = :username "
+            + "OR e.uuid IN (SELECT p.event.uuid FROM participant p WHERE p.username = :username)) "
+            + "AND " + AFTER_CURSOR + " ORDER BY e.eventDate, e.uuid")
+    List<Event> findMyEventPage(String username, LocalDateTime afterDate, String afterUuid, Pageable pageable);
+
+    // Cursor-backed, participant rows of an event are contiguous thanks to the ordering on uuid
+    @Query("SELECT e FROM event e LEFT JOIN FETCH e.participants WHERE e.groupUuid = :groupUuid "
+            + "AND e.eventDate >= :after ORDER BY e.eventDate, e.uuid")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<Event> streamByGroupUuid(String groupUuid, LocalDateTime after);
+
+    @Query("SELECT e FROM event e LEFT JOIN FETCH e.participants WHERE e.uuid IN :uuids "
+            + "AND e.eventDate >= :after ORDER BY e.eventDate, e.uuid")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<Event> streamByUuidIn(List<String> uuids, LocalDateTime after);
+
+    @Query("SELECT e.uuid FROM event e WHERE e.eventDate < :before")
+    List<String> findExpiredEventUuids(LocalDateTime before, Pageable pageable);
+
+    // Bulk delete, participants have to be removed first with ParticipantRepository.deleteByEventUuids
+    @Modifying
+    @Query("DELETE FROM event e WHERE e.uuid IN :uuids")
+    int deleteByUuids(List<String> uuids);
 }
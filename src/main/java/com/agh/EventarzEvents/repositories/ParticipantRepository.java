@@ -0,0 +1,42 @@
+package com.agh.EventarzEvents.repositories;
+
+import com.agh.EventarzEvents.model.Participant;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ParticipantRepository extends CrudRepository<Participant, String> {
+
+    boolean existsByEventUuidAndUsername(String eventUuid, String username);
+
+    long countByEventUuid(String eventUuid);
+
+    @Query("SELECT p.username FROM participant p WHERE p.event.uuid = :eventUuid")
+    List<String> findUsernamesByEventUuid(String eventUuid);
+
+    @Modifying
+    @Query("DELETE FROM participant p WHERE p.event.uuid = :eventUuid AND p.username IN :usernames")
+    int deleteByEventUuidAndUsernameIn(String eventUuid, List<String> usernames);
+
+    // Event uuid and group uuid pairs
+    @Query("SELECT e.uuid, e.groupUuid FROM participant p INNER JOIN p.event e "
+            + "WHERE p.username = :username AND e.groupUuid IN :groupUuids")
+    List<Object[]> findMembershipsByGroupUuidsAndUsername(List<String> groupUuids, String username);
+
+    @Modifying
+    @Query("DELETE FROM participant p WHERE p.username = :username "
+            + "AND p.event.uuid IN (SELECT e.uuid FROM event e WHERE e.groupUuid IN :groupUuids)")
+    int deleteByGroupUuidsAndUsername(List<String> groupUuids, String username);
+
+    @Modifying
+    @Query("DELETE FROM participant p WHERE p.event.uuid = :eventUuid AND p.username = :username")
+    int deleteByEventUuidAndUsername(String eventUuid, String username);
+
+    @Modifying
+    @Query("DELETE FROM participant p WHERE p.event.uuid IN :eventUuids")
+    int deleteByEventUuids(List<String> eventUuids);
+}
@@ -0,0 +1,23 @@
+package com.agh.EventarzEvents.repositories;
+
+import com.agh.EventarzEvents.model.SchedulerLease;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLeaseRepository extends CrudRepository<SchedulerLease, String> {
+
+    // Only matches a lease that has run out or that the owner already holds, so one instance wins the update
+    @Modifying
+    @Query("UPDATE scheduler_lease l SET l.lockedUntil = :until, l.lockedBy = :owner " +
+            "WHERE l.name = :name AND (l.lockedUntil < :now OR l.lockedBy = :owner)")
+    int acquire(String name, String owner, LocalDateTime now, LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE scheduler_lease l SET l.lockedUntil = :now WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(String name, String owner, LocalDateTime now);
+}
@@ -0,0 +1,143 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.Event;
+import com.agh.EventarzEvents.model.EventChange;
+import com.agh.EventarzEvents.model.EventChangePrune;
+import com.agh.EventarzEvents.repositories.EventChangePruneRepository;
+import com.agh.EventarzEvents.repositories.EventChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Read-through cache for single events and group listings. Holds detached copies and hands out copies of them.
+// Local writes evict their keys after commit, writes on the other replicas are picked up from event_changes.
+@Service
+public class EventCacheService {
+
+    public static final String EVENTS_CACHE = "events";
+    public static final String GROUP_EVENTS_CACHE = "groupEvents";
+
+    private static final int CHANGES_PER_POLL = 1000;
+
+    private final Cache eventsCache;
+    private final Cache groupEventsCache;
+    private final EventChangeRepository eventChangeRepository;
+    private final EventChangePruneRepository eventChangePruneRepository;
+    private final EventChangeFeedService eventChangeFeedService;
+    private final Duration settleDelay;
+    private final Duration changeRetention;
+    private long lastChangeId = -1;
+
+    private final static Logger log = LoggerFactory.getLogger(EventCacheService.class);
+
+    public EventCacheService(CacheManager cacheManager, EventChangeRepository eventChangeRepository,
+                             EventChangePruneRepository eventChangePruneRepository,
+                             EventChangeFeedService eventChangeFeedService,
+                             @Value("${eventarz.cache.invalidation-settle-delay}") Duration settleDelay,
+                             @Value("${eventarz.changes.retention}") Duration changeRetention) {
+        this.eventsCache = cacheManager.getCache(EVENTS_CACHE);
+        this.groupEventsCache = cacheManager.getCache(GROUP_EVENTS_CACHE);
+        this.eventChangeRepository = eventChangeRepository;
+        this.eventChangePruneRepository = eventChangePruneRepository;
+        this.eventChangeFeedService = eventChangeFeedService;
+        this.settleDelay = settleDelay;
+        this.changeRetention = changeRetention;
+    }
+
+    // Loaders run in the caller's transaction, with the participants loaded
+    public Event getEvent(String uuid, Supplier<Event> loader) {
+        Event event = eventsCache.get(uuid, Event.class);
+        if (event != null) {
+            return event.copy();
+        }
+        event = loader.get();
+        if (event != null) {
+            eventsCache.put(uuid, event.copy());
+        }
+        return event;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Event> getGroupEvents(String groupUuid, Supplier<List<Event>> loader) {
+        List<Event> events = groupEventsCache.get(groupUuid, List.class);
+        if (events != null) {
+            return copy(events);
+        }
+        events = loader.get();
+        groupEventsCache.put(groupUuid, Collections.unmodifiableList(copy(events)));
+        return events;
+    }
+
+    public void evict(EventChange change) {
+        eventsCache.evict(change.getEventUuid());
+        if (change.getGroupUuid() != null) {
+            groupEventsCache.evict(change.getGroupUuid());
+        }
+    }
+
+    // Changes stay in the polled range until they are older than the settle delay, so a transaction that
+    // committed a lower id late, or a read that cached stale data right before an eviction, is still covered.
+    @Scheduled(fixedDelayString = "${eventarz.cache.invalidation-poll-interval}")
+    public void pollChanges() {
+        if (lastChangeId < 0) {
+            Long latestId = eventChangeRepository.findLatestId();
+            lastChangeId = latestId == null ? 0 : latestId;
+            eventChangeFeedService.publish(lastChangeId);
+            return;
+        }
+        LocalDateTime settled = LocalDateTime.now().minus(settleDelay);
+        boolean advance = true;
+        long readAfter = lastChangeId;
+        List<EventChange> changes;
+        // Pages through to the latest change, a burst bigger than a page would otherwise be evicted late
+        do {
+            changes = eventChangeRepository.findByIdGreaterThanOrderById(readAfter, PageRequest.of(0, CHANGES_PER_POLL));
+            for (EventChange change : changes) {
+                evict(change);
+                // Wakes feed consumers for changes made by the other replicas
+                eventChangeFeedService.publish(change.getId());
+                if (advance && change.getCreatedAt().isBefore(settled)) {
+                    lastChangeId = change.getId();
+                } else {
+                    advance = false;
+                }
+                readAfter = change.getId();
+            }
+        } while (changes.size() == CHANGES_PER_POLL);
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${eventarz.changes.prune-interval}")
+    public void pruneChanges() {
+        // Prunes by id and records the highest one, feed consumers can't tell a pruned id from a gap in the identity
+        Long prunedThrough = eventChangeRepository.findLatestIdBefore(LocalDateTime.now().minus(changeRetention));
+        if (prunedThrough == null) {
+            return;
+        }
+        int pruned = eventChangeRepository.deleteThrough(prunedThrough);
+        eventChangePruneRepository.save(new EventChangePrune(prunedThrough));
+        eventChangePruneRepository.deleteOlderThan(prunedThrough);
+        log.info("Pruned " + pruned + " event changes");
+    }
+
+    private static List<Event> copy(List<Event> events) {
+        List<Event> copies = new ArrayList<>(events.size());
+        for (Event event : events) {
+            copies.add(event.copy());
+        }
+        return copies;
+    }
+}
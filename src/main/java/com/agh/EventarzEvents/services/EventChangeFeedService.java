@@ -0,0 +1,163 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.EventChange;
+import com.agh.EventarzEvents.model.EventChangeFeed;
+import com.agh.EventarzEvents.repositories.EventChangePruneRepository;
+import com.agh.EventarzEvents.repositories.EventChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Change feed over event_changes, which every EventService mutation appends to in its own transaction.
+// Waiting consumers are woken by local commits and by EventCacheService picking up changes of the other replicas,
+// they don't poll the database while nothing changes.
+@Service
+public class EventChangeFeedService {
+
+    public static final int MAX_CHANGES = 1000;
+
+    private final EventChangeRepository eventChangeRepository;
+    private final EventChangePruneRepository eventChangePruneRepository;
+    private final Duration settleDelay;
+    private final Duration longPollTimeout;
+    private final Duration streamTimeout;
+    private final Lock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Lock-based waits and virtual threads, a stream holds no platform thread between changes
+    private final ExecutorService streamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private long latestId;
+
+    public EventChangeFeedService(EventChangeRepository eventChangeRepository,
+                                  EventChangePruneRepository eventChangePruneRepository,
+                                  @Value("${eventarz.cache.invalidation-settle-delay}") Duration settleDelay,
+                                  @Value("${eventarz.changes.long-poll-timeout}") Duration longPollTimeout,
+                                  @Value("${eventarz.changes.stream-timeout}") Duration streamTimeout) {
+        this.eventChangeRepository = eventChangeRepository;
+        this.eventChangePruneRepository = eventChangePruneRepository;
+        this.settleDelay = settleDelay;
+        this.longPollTimeout = longPollTimeout;
+        this.streamTimeout = streamTimeout;
+    }
+
+    public void publish(long id) {
+        lock.lock();
+        try {
+            if (id > latestId) {
+                latestId = id;
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public EventChangeFeed readChanges(long after, long seen, int limit) {
+        PageRequest page = PageRequest.of(0, Math.min(Math.max(limit, 1), MAX_CHANGES));
+        List<EventChange> changes = eventChangeRepository.findByIdGreaterThanOrderById(after, page);
+        // An id committed late can still appear below the newest one, see EventCacheService.pollChanges
+        LocalDateTime settled = LocalDateTime.now().minus(settleDelay);
+        long cursor = after;
+        for (EventChange change : changes) {
+            if (!change.getCreatedAt().isBefore(settled)) {
+                break;
+            }
+            cursor = change.getId();
+        }
+        // A full page of delivered but unsettled changes would come back on every read, the cursor stays
+        // behind them until they settle and the newer changes are read past them
+        if (changes.size() >= page.getPageSize() && changes.get(changes.size() - 1).getId() <= seen) {
+            changes = eventChangeRepository.findByIdGreaterThanOrderById(Math.max(cursor, seen), page);
+        }
+        long lastId = Math.max(after, seen);
+        for (EventChange change : changes) {
+            lastId = Math.max(lastId, change.getId());
+        }
+        boolean reset = false;
+        if (after > 0) {
+            Long prunedThrough = eventChangePruneRepository.findPrunedThrough();
+            reset = prunedThrough != null && after < prunedThrough;
+        }
+        return new EventChangeFeed(changes, cursor, lastId, reset);
+    }
+
+    // Long poll, returns as soon as there is a change after seen, or empty-handed after the long poll timeout
+    public EventChangeFeed waitForChanges(long after, long seen, int limit) {
+        long deadline = System.nanoTime() + longPollTimeout.toNanos();
+        while (true) {
+            EventChangeFeed feed = readChanges(after, seen, limit);
+            if (feed.getLastId() > seen || feed.isReset()) {
+                return feed;
+            }
+            lock.lock();
+            try {
+                while (latestId <= seen) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return feed;
+                    }
+                    changed.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return feed;
+            } finally {
+                lock.unlock();
+            }
+            if (deadline - System.nanoTime() <= 0) {
+                return feed;
+            }
+        }
+    }
+
+    // Server-sent events. Each change is sent once per connection, its event id is the cursor to resume from.
+    public SseEmitter streamChanges(long after) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        streamExecutor.execute(() -> {
+            long cursor = after;
+            long seen = after;
+            try {
+                while (true) {
+                    EventChangeFeed feed = waitForChanges(cursor, seen, MAX_CHANGES);
+                    if (feed.isReset()) {
+                        emitter.send(SseEmitter.event().name("reset").id(String.valueOf(feed.getCursor())).data(""));
+                    }
+                    boolean sent = false;
+                    for (EventChange change : feed.getChanges()) {
+                        if (change.getId() > seen) {
+                            emitter.send(SseEmitter.event().name("change").id(String.valueOf(feed.getCursor())).data(change));
+                            sent = true;
+                        }
+                    }
+                    if (!sent) {
+                        // Finds out about closed connections
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    }
+                    cursor = feed.getCursor();
+                    seen = feed.getLastId();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Disconnected, or the emitter timed out and was completed by Spring
+            }
+        });
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        streamExecutor.shutdownNow();
+        streamExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,38 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.EventChange;
+import com.agh.EventarzEvents.model.EventChangeType;
+import com.agh.EventarzEvents.repositories.EventChangeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class EventChangeService {
+
+    private final EventChangeRepository eventChangeRepository;
+    private final EventCacheService eventCacheService;
+    private final EventChangeFeedService eventChangeFeedService;
+
+    public EventChangeService(EventChangeRepository eventChangeRepository, EventCacheService eventCacheService,
+                              EventChangeFeedService eventChangeFeedService) {
+        this.eventChangeRepository = eventChangeRepository;
+        this.eventCacheService = eventCacheService;
+        this.eventChangeFeedService = eventChangeFeedService;
+    }
+
+    // Stored in the caller's transaction, the local cache is evicted and feed consumers are woken once it commits
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChange(EventChangeType type, String eventUuid, String groupUuid) {
+        EventChange change = eventChangeRepository.save(new EventChange(type, eventUuid, groupUuid));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eventCacheService.evict(change);
+                eventChangeFeedService.publish(change.getId());
+            }
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.EventChangeType;
+import com.agh.EventarzEvents.model.PurgeResult;
+import com.agh.EventarzEvents.repositories.EventRepository;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Splits group and uuid deletes into chunks, EventService.deleteEventBatch deletes each one in its own transaction
+@Service
+public class EventDeletionService {
+
+    // SQL Server allows 2100 parameters per statement
+    private static final int MAX_IN_PARAMETERS = 2000;
+
+    private final EventRepository eventRepository;
+    private final EventService eventService;
+    private final int chunkSize;
+
+    private final static Logger log = LoggerFactory.getLogger(EventDeletionService.class);
+
+    public EventDeletionService(EventRepository eventRepository, EventService eventService,
+                                @Value("${eventarz.deletion.chunk-size}") int chunkSize) {
+        this.eventRepository = eventRepository;
+        this.eventService = eventService;
+        this.chunkSize = Math.min(chunkSize, MAX_IN_PARAMETERS);
+    }
+
+    // Admitted once, before the first chunk, so a full bulkhead rejects the delete before anything is deleted
+    @Bulkhead(name = "EventServiceWrite")
+    public PurgeResult deleteEventsByGroupUuid(String groupUuid) {
+        PurgeResult total = new PurgeResult();
+        List<String> uuids;
+        try {
+            do {
+                // Every chunk is deleted before the next one is selected, so the first page is always the next chunk
+                uuids = eventRepository.findUuidsByGroupUuid(groupUuid, PageRequest.of(0, chunkSize));
+                if (!uuids.isEmpty()) {
+                    total.add(eventService.deleteEventBatch(uuids, EventChangeType.DELETED));
+                }
+            } while (uuids.size() == chunkSize);
+        } catch (RuntimeException e) {
+            logPartialDelete("group " + groupUuid, total);
+            throw e;
+        }
+        return total;
+    }
+
+    @Bulkhead(name = "EventServiceWrite")
+    public PurgeResult deleteEvents(String[] uuids) {
+        PurgeResult total = new PurgeResult();
+        List<String> uuidList = Arrays.asList(uuids);
+        try {
+            for (int i = 0; i < uuidList.size(); i += chunkSize) {
+                total.add(eventService.deleteEventBatch(uuidList.subList(i, Math.min(i + chunkSize, uuidList.size())),
+                        EventChangeType.DELETED));
+            }
+        } catch (RuntimeException e) {
+            logPartialDelete(uuidList.size() + " events", total);
+            throw e;
+        }
+        return total;
+    }
+
+    // The committed chunks stay deleted, a repeated delete picks up the rest
+    private void logPartialDelete(String target, PurgeResult deleted) {
+        log.warn("Delete of " + target + " failed after deleting " + deleted.getEvents() + " events and "
+                + deleted.getParticipants() + " participants");
+    }
+}
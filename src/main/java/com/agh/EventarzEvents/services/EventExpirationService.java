@@ -0,0 +1,87 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.EventChangeType;
+import com.agh.EventarzEvents.model.PurgeResult;
+import com.agh.EventarzEvents.repositories.EventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class EventExpirationService {
+
+    private static final String LEASE_NAME = "expiration-sweep";
+
+    private final EventRepository eventRepository;
+    private final EventService eventService;
+    private final SchedulerLeaseService schedulerLeaseService;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Duration leaseDuration;
+
+    private final static Logger log = LoggerFactory.getLogger(EventExpirationService.class);
+
+    public EventExpirationService(EventRepository eventRepository, EventService eventService,
+                                  SchedulerLeaseService schedulerLeaseService, MeterRegistry meterRegistry,
+                                  @Value("${eventarz.expiration.batch-size}") int batchSize,
+                                  @Value("${eventarz.expiration.lease-duration}") Duration leaseDuration) {
+        this.eventRepository = eventRepository;
+        this.eventService = eventService;
+        this.schedulerLeaseService = schedulerLeaseService;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.leaseDuration = leaseDuration;
+    }
+
+    @Scheduled(fixedDelayString = "${eventarz.expiration.sweep-interval}", initialDelayString = "${eventarz.expiration.initial-delay}")
+    public void purgeExpiredEvents() {
+        // Every instance schedules the sweep, only the one holding the lease runs it
+        boolean acquired;
+        try {
+            acquired = schedulerLeaseService.tryAcquire(LEASE_NAME, leaseDuration);
+        } catch (DataAccessException e) {
+            acquired = false;
+        }
+        if (!acquired) {
+            log.debug("Expiration sweep skipped, another instance holds the lease");
+            return;
+        }
+        try {
+            purge();
+        } finally {
+            schedulerLeaseService.release(LEASE_NAME);
+        }
+    }
+
+    private void purge() {
+        long start = System.nanoTime();
+        LocalDateTime expirationDate = EventService.getExpirationDate();
+        PurgeResult total = new PurgeResult();
+        List<String> expiredUuids;
+        do {
+            // Every batch is deleted before the next one is selected, so the first page is always the next batch
+            expiredUuids = eventRepository.findExpiredEventUuids(expirationDate, PageRequest.of(0, batchSize));
+            if (!expiredUuids.isEmpty()) {
+                total.add(eventService.deleteEventBatch(expiredUuids, EventChangeType.EXPIRED));
+            }
+        } while (expiredUuids.size() == batchSize);
+        long duration = System.nanoTime() - start;
+
+        Timer.builder("eventarz.expiration.sweep").register(meterRegistry).record(duration, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("eventarz.expiration.purged", "type", "events").increment(total.getEvents());
+        meterRegistry.counter("eventarz.expiration.purged", "type", "participants").increment(total.getParticipants());
+        log.info("Expiration sweep purged " + total.getEvents() + " events and " + total.getParticipants()
+                + " participants in " + TimeUnit.NANOSECONDS.toMillis(duration) + "ms");
+    }
+}
@@ -0,0 +1,146 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.Event;
+import com.agh.EventarzEvents.model.EventCursor;
+import com.agh.EventarzEvents.model.EventNameGram;
+import com.agh.EventarzEvents.model.EventPage;
+import com.agh.EventarzEvents.repositories.EventNameGramRepository;
+import com.agh.EventarzEvents.repositories.EventRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static com.agh.EventarzEvents.model.EventNameGram.GRAM_LENGTH;
+
+// Substring search on event names backed by the event_name_grams index.
+// Every position of a name is indexed with the (up to) 3 characters starting there, so a search term
+// is found through its full trigrams, and shorter terms through a prefix match on the grams.
+@Service
+public class EventSearchService {
+
+    private static final int MAX_QUERY_GRAMS = 32;
+
+    private final EventNameGramRepository eventNameGramRepository;
+    private final EventRepository eventRepository;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public EventSearchService(EventNameGramRepository eventNameGramRepository, EventRepository eventRepository,
+                              @Value("${eventarz.search.default-limit}") int defaultLimit,
+                              @Value("${eventarz.search.max-limit}") int maxLimit) {
+        this.eventNameGramRepository = eventNameGramRepository;
+        this.eventRepository = eventRepository;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @Transactional
+    public void indexEventName(Event event) {
+        eventNameGramRepository.deleteByEventUuid(event.getUuid());
+        List<EventNameGram> grams = new ArrayList<>();
+        for (String gram : extractGrams(event.getName())) {
+            grams.add(new EventNameGram(event, gram));
+        }
+        eventNameGramRepository.saveAll(grams);
+    }
+
+    // Ranked in the query, so the limit applies to the best matches of all events containing the term.
+    // That costs a sort of every match however small the limit, searchEventPageByName reads one page of the index.
+    @Transactional(readOnly = true)
+    public List<Event> searchEventsByName(String name, Integer limit) {
+        String term = name.trim().toLowerCase(Locale.ROOT);
+        int resultLimit = limit == null ? defaultLimit : Math.min(limit, maxLimit);
+        if (term.isEmpty() || resultLimit <= 0) {
+            return new ArrayList<>();
+        }
+        LocalDateTime after = EventService.getExpirationDate();
+        Pageable page = PageRequest.of(0, resultLimit);
+        List<Event> events;
+        if (term.length() < GRAM_LENGTH) {
+            events = eventRepository.findByNameGramPrefix(term, escapeLike(term), after, page);
+        } else {
+            List<String> grams = extractQueryGrams(term);
+            events = eventRepository.findByNameGrams(grams, grams.size(), term, escapeLike(term), after, page);
+        }
+        for (Event event : events) {
+            event.checkEventDate();
+            Hibernate.initialize(event.getParticipantMap());
+        }
+        return events;
+    }
+
+    // Pages are ordered by date instead of rank, and can come out shorter than pageSize
+    // when some candidates turn out not to contain the term.
+    @Transactional(readOnly = true)
+    public EventPage searchEventPageByName(String name, EventCursor cursor, int pageSize) {
+        String term = name.trim().toLowerCase(Locale.ROOT);
+        if (term.isEmpty()) {
+            return new EventPage(new ArrayList<>(), null);
+        }
+        Pageable page = PageRequest.of(0, pageSize);
+        List<String> uuids;
+        if (term.length() < GRAM_LENGTH) {
+            uuids = eventNameGramRepository.findEventUuidPageByGramPrefix(escapeLike(term) + "%",
+                    cursor.getEventDate(), cursor.getUuid(), page);
+        } else {
+            List<String> grams = extractQueryGrams(term);
+            uuids = eventNameGramRepository.findEventUuidPageByGrams(grams, grams.size(),
+                    cursor.getEventDate(), cursor.getUuid(), page);
+        }
+        if (uuids.isEmpty()) {
+            return new EventPage(new ArrayList<>(), null);
+        }
+
+        List<Event> candidates = eventRepository.findByUuidIn(uuids, cursor.getEventDate());
+        candidates.sort(Comparator.comparing(Event::getEventDate).thenComparing(Event::getUuid));
+        List<Event> events = new ArrayList<>();
+        for (Event event : candidates) {
+            if (event.getName() != null && event.getName().toLowerCase(Locale.ROOT).contains(term)) {
+                event.checkEventDate();
+                Hibernate.initialize(event.getParticipantMap());
+                events.add(event);
+            }
+        }
+        String nextPageToken = null;
+        if (uuids.size() == pageSize && !candidates.isEmpty()) {
+            nextPageToken = EventCursor.after(candidates.get(candidates.size() - 1)).encode();
+        }
+        return new EventPage(events, nextPageToken);
+    }
+
+    public static Set<String> extractGrams(String name) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (name == null) {
+            return grams;
+        }
+        String text = name.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < text.length(); i++) {
+            grams.add(text.substring(i, Math.min(i + GRAM_LENGTH, text.length())));
+        }
+        return grams;
+    }
+
+    private static List<String> extractQueryGrams(String term) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= term.length() && grams.size() < MAX_QUERY_GRAMS; i++) {
+            grams.add(term.substring(i, i + GRAM_LENGTH));
+        }
+        return new ArrayList<>(grams);
+    }
+
+    // Escapes LIKE wildcards for ESCAPE '!', including SQL Server's [ ] character classes
+    private static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_").replace("[", "![");
+    }
+}
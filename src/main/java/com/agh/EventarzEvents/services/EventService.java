@@ -2,138 +2,331 @@ package com.agh.EventarzEvents.services;
 
 import com.agh.EventarzEvents.exceptions.EventFullException;
 import com.agh.EventarzEvents.exceptions.EventNotFoundException;
+import com.agh.EventarzEvents.exceptions.InvalidPageRequestException;
 import com.agh.EventarzEvents.model.Event;
+import com.agh.EventarzEvents.model.EventChangeType;
+import com.agh.EventarzEvents.model.EventCursor;
 import com.agh.EventarzEvents.model.EventForm;
+import com.agh.EventarzEvents.model.EventPage;
+import com.agh.EventarzEvents.model.EventSummary;
 import com.agh.EventarzEvents.model.Participant;
+import com.agh.EventarzEvents.model.ParticipantBatchForm;
+import com.agh.EventarzEvents.model.ParticipantBatchResult;
+import com.agh.EventarzEvents.model.ParticipantOutcome;
+import com.agh.EventarzEvents.model.PurgeResult;
 import com.agh.EventarzEvents.repositories.EventRepository;
+import com.agh.EventarzEvents.repositories.ParticipantRepository;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 
+// Reads, name searches and writes have separate retry, circuit breaker and bulkhead instances, so slow searches
+// can't open the breaker of the cheap reads. Searches are never retried.
 @Service
-@Retry(name = "EventServiceRetry")
-@CircuitBreaker(name = "EventServiceCircuitBreaker")
 public class EventService {
 
+    // Transaction timeouts in seconds, Spring applies the remaining time as the timeout of every query
+    private static final int READ_TIMEOUT = 5;
+    private static final int SEARCH_TIMEOUT = 10;
+    private static final int WRITE_TIMEOUT = 10;
+
+    // SQL Server allows 2100 parameters per statement
+    private static final int MAX_IN_PARAMETERS = 2000;
+
     private final EventRepository eventRepository;
+    private final ParticipantRepository participantRepository;
+    private final EventSearchService eventSearchService;
+    private final EventCacheService eventCacheService;
+    private final EventChangeService eventChangeService;
+    private final int maxPageSize;
+    private final Duration homeWindow;
+    private final int homeLimit;
 
-    public EventService(EventRepository eventRepository) {
+    public EventService(EventRepository eventRepository, ParticipantRepository participantRepository,
+                        EventSearchService eventSearchService, EventCacheService eventCacheService,
+                        EventChangeService eventChangeService, @Value("${eventarz.paging.max-page-size}") int maxPageSize,
+                        @Value("${eventarz.home.window}") Duration homeWindow, @Value("${eventarz.home.limit}") int homeLimit) {
         this.eventRepository = eventRepository;
+        this.participantRepository = participantRepository;
+        this.eventSearchService = eventSearchService;
+        this.eventCacheService = eventCacheService;
+        this.eventChangeService = eventChangeService;
+        this.maxPageSize = maxPageSize;
+        this.homeWindow = homeWindow;
+        this.homeLimit = homeLimit;
     }
 
-    @Transactional(readOnly = true)
+    // Cache fills and ETag validators read from the primary, their transactions aren't read-only. A read replica
+    // behind the primary would put the old event back into the cache right after a write evicted it.
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(timeout = READ_TIMEOUT)
     public Event getEventByUuid(String uuid) throws EventNotFoundException {
-        Event event = eventRepository.findByUuid(uuid);
+        Event event = eventCacheService.getEvent(uuid, () -> eventRepository.findByUuid(uuid));
         if (event == null) {
             throw new EventNotFoundException("Event " + uuid + " not found!");
         }
-        event = handleEventExpiration(event);
-        if (event == null) {
+        event.checkEventDate();
+        // Expired events are purged by EventExpirationService, until then they are hidden
+        if (event.isExpired()) {
             throw new EventNotFoundException("Event " + uuid + " not found!");
         }
         return event;
     }
 
-    @Transactional(readOnly = true)
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
     public List<Event> getEventsByUuidList(String[] uuids) {
-        List<Event> events = eventRepository.findByUuidIn(Arrays.asList(uuids));
+        List<Event> events = eventRepository.findByUuidIn(Arrays.asList(uuids), getExpirationDate());
+        checkEventDates(events);
         return events;
     }
 
-    @Transactional(readOnly = true)
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
     public List<Event> getMyEvents(String username) {
-        // TODO: This should be doable in one query but it didn't work for some reason.
-        List<Event> organizedEvents = eventRepository.findOrganizedEvents(username);
-        List<Event> joinedEvents = eventRepository.findJoinedEvents(username);
-        List<Event> events = new ArrayList<>(organizedEvents);
-        List<String> organizedEventUuids = new ArrayList<>();
-        for (Event event : organizedEvents) {
-            organizedEventUuids.add(event.getUuid());
-        }
-        for (Event event : joinedEvents) {
-            if (!organizedEventUuids.contains(event.getUuid())) {
-                events.add(event);
-            }
-        }
-        events = handleEventExpiration(events);
-        events.sort(Event::compareEventDates);
+        List<Event> events = eventRepository.findMyEvents(username, getExpirationDate());
+        checkEventDates(events);
         return events;
     }
 
-    @Transactional(readOnly = true)
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
+    public List<EventSummary> getMyEventSummaries(String username) {
+        return eventRepository.findMyEventSummaries(username, getExpirationDate());
+    }
+
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
     public List<Event> getOrganizedEvents(String username) {
-        List<Event> events = eventRepository.findOrganizedEvents(username);
-        events = handleEventExpiration(events);
-        events.sort(Event::compareEventDates);
+        List<Event> events = eventRepository.findOrganizedEvents(username, getExpirationDate());
+        checkEventDates(events);
         return events;
     }
 
-    @Transactional(readOnly = true)
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
     public List<Event> getJoinedEvents(String username) {
-        List<Event> events = eventRepository.findJoinedEvents(username);
-        events = handleEventExpiration(events);
-        events.sort(Event::compareEventDates);
+        List<Event> events = eventRepository.findJoinedEvents(username, getExpirationDate());
+        checkEventDates(events);
         return events;
     }
 
-    @Transactional(readOnly = true)
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
     public List<Event> getHomeEvents(String username) {
-        List<Event> events = eventRepository.findOrganizedEvents(username);
-        events = extractUpcomingEvents(events);
-        events = handleEventExpiration(events);
-        events.sort(Event::compareEventDates);
+        LocalDateTime now = LocalDateTime.now();
+        List<Event> events = eventRepository.findHomeEvents(username, now, now.plus(homeWindow),
+                PageRequest.of(0, homeLimit));
+        checkEventDates(events);
         return events;
     }
 
-    @Transactional(readOnly = true)
-    public List<Event> getEventsByName(String name) {
-        List<Event> events = eventRepository.findByNameLikeIgnoreCase("%" + name + "%");
-        events = handleEventExpiration(events);
-        events.sort(Event::compareEventDates);
-        return events;
+    // Matches getETag(Event) of the event getEventByUuid would return, read from the primary like it
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(timeout = READ_TIMEOUT)
+    public String getEventETag(String uuid) throws EventNotFoundException {
+        List<Object[]> versions = eventRepository.findVersionByUuid(uuid);
+        if (versions.isEmpty()) {
+            throw new EventNotFoundException("Event " + uuid + " not found!");
+        }
+        LocalDateTime eventDate = (LocalDateTime) versions.get(0)[1];
+        if (eventDate.isBefore(getExpirationDate())) {
+            throw new EventNotFoundException("Event " + uuid + " not found!");
+        }
+        int happened = eventDate.isBefore(LocalDateTime.now()) ? 1 : 0;
+        return "\"" + versions.get(0)[0] + "-" + happened + "\"";
+    }
+
+    // Matches getETag(List) of the events getEventsByGroupUuid would return, read from the primary like it
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(timeout = READ_TIMEOUT)
+    public String getGroupETag(String groupUuid) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> versions = eventRepository.findVersionsByGroupUuid(groupUuid, getExpirationDate());
+        // Sorted here, the database collation doesn't have to order the uuids like String.compareTo
+        versions.sort(Comparator.comparing(version -> (String) version[0]));
+        MessageDigest digest = newETagDigest();
+        for (Object[] version : versions) {
+            updateETagDigest(digest, (String) version[0], (Long) version[1], ((LocalDateTime) version[2]).isBefore(now));
+        }
+        return toETag(versions.size(), digest);
+    }
+
+    @CircuitBreaker(name = "EventServiceSearch")
+    @Bulkhead(name = "EventServiceSearch")
+    @Transactional(readOnly = true, timeout = SEARCH_TIMEOUT)
+    public List<Event> getEventsByName(String name, Integer limit) {
+        return eventSearchService.searchEventsByName(name, limit);
     }
 
-    @Transactional(readOnly = true)
+    // Fills the group cache, from the primary like getEventByUuid
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(timeout = READ_TIMEOUT)
     public List<Event> getEventsByGroupUuid(String groupUuid) {
-        List<Event> events = eventRepository.findByGroupUuid(groupUuid);
-        events = handleEventExpiration(events);
-        events.sort(Event::compareEventDates);
-        return events;
+        List<Event> events = eventCacheService.getGroupEvents(groupUuid, () -> {
+            List<Event> groupEvents = eventRepository.findByGroupUuid(groupUuid, getExpirationDate());
+            // Cached events are detached, so the participants have to be loaded up front
+            for (Event event : groupEvents) {
+                Hibernate.initialize(event.getParticipantMap());
+            }
+            return groupEvents;
+        });
+        // Cached listings can outlive the expiration of some of their events
+        List<Event> activeEvents = new ArrayList<>();
+        for (Event event : events) {
+            event.checkEventDate();
+            if (!event.isExpired()) {
+                activeEvents.add(event);
+            }
+        }
+        return activeEvents;
     }
 
-    @Transactional(readOnly = true)
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
+    public EventPage getEventPageByGroupUuid(String groupUuid, int pageSize, String pageToken) {
+        EventCursor cursor = getStartCursor(pageToken, pageSize);
+        List<Event> events = eventRepository.findPageByGroupUuid(groupUuid, cursor.getEventDate(), cursor.getUuid(),
+                PageRequest.of(0, pageSize));
+        return toPage(events, pageSize);
+    }
+
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
+    public EventPage getOrganizedEventPage(String username, int pageSize, String pageToken) {
+        EventCursor cursor = getStartCursor(pageToken, pageSize);
+        List<Event> events = eventRepository.findOrganizedEventPage(username, cursor.getEventDate(), cursor.getUuid(),
+                PageRequest.of(0, pageSize));
+        return toPage(events, pageSize);
+    }
+
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
+    public EventPage getJoinedEventPage(String username, int pageSize, String pageToken) {
+        EventCursor cursor = getStartCursor(pageToken, pageSize);
+        List<Event> events = eventRepository.findJoinedEventPage(username, cursor.getEventDate(), cursor.getUuid(),
+                PageRequest.of(0, pageSize));
+        return toPage(events, pageSize);
+    }
+
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
+    public EventPage getMyEventPage(String username, int pageSize, String pageToken) {
+        EventCursor cursor = getStartCursor(pageToken, pageSize);
+        List<Event> events = eventRepository.findMyEventPage(username, cursor.getEventDate(), cursor.getUuid(),
+                PageRequest.of(0, pageSize));
+        return toPage(events, pageSize);
+    }
+
+    @CircuitBreaker(name = "EventServiceSearch")
+    @Bulkhead(name = "EventServiceSearch")
+    @Transactional(readOnly = true, timeout = SEARCH_TIMEOUT)
+    public EventPage getEventPageByName(String name, int pageSize, String pageToken) {
+        return eventSearchService.searchEventPageByName(name, getStartCursor(pageToken, pageSize), pageSize);
+    }
+
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
+    public List<EventSummary> getEventSummariesByGroupUuid(String groupUuid) {
+        return eventRepository.findSummariesByGroupUuid(groupUuid, getExpirationDate());
+    }
+
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
     public Map<String, Integer> getEventCountsByGroupUuids(String[] groupUuids) {
         Map<String, Integer> counts = new HashMap<>();
         for (String groupUuid : groupUuids) {
-            counts.put(groupUuid, eventRepository.findEventCountByGroupUuid(groupUuid));
+            counts.put(groupUuid, 0);
+        }
+        // Counts the same events the group listing shows, expired ones left for the sweep are skipped
+        LocalDateTime after = getExpirationDate();
+        List<String> uuidList = new ArrayList<>(counts.keySet());
+        for (int i = 0; i < uuidList.size(); i += MAX_IN_PARAMETERS) {
+            List<String> chunk = uuidList.subList(i, Math.min(i + MAX_IN_PARAMETERS, uuidList.size()));
+            for (Object[] row : eventRepository.findEventCountsByGroupUuids(chunk, after)) {
+                counts.put((String) row[0], ((Long) row[1]).intValue());
+            }
         }
         return counts;
     }
 
-    @Transactional
+    @Retry(name = "EventServiceWrite")
+    @CircuitBreaker(name = "EventServiceWrite")
+    @Bulkhead(name = "EventServiceWrite")
+    @Transactional(timeout = WRITE_TIMEOUT)
     public Event createEvent(EventForm eventForm) {
         Event event = new Event(eventForm);
         if (eventForm.isParticipate()) {
-            event.getParticipants().add(new Participant(event, eventForm.getOrganizerUsername()));
+            event.getParticipantMap().put(eventForm.getOrganizerUsername(), new Participant(event, eventForm.getOrganizerUsername()));
+            event.setParticipantCount(1);
         }
         event = eventRepository.save(event);
+        eventSearchService.indexEventName(event);
+        eventChangeService.recordChange(EventChangeType.CREATED, event.getUuid(), event.getGroupUuid());
         return event;
     }
 
-    @Transactional
-    public void deleteEventsByGroupUuid(String groupUuid) {
-        eventRepository.deleteByGroupUuid(groupUuid);
-    }
-
-    @Transactional
+    @Retry(name = "EventServiceWrite")
+    @CircuitBreaker(name = "EventServiceWrite")
+    @Bulkhead(name = "EventServiceWrite")
+    @Transactional(timeout = WRITE_TIMEOUT)
     public Event updateEvent(String uuid, EventForm eventForm) throws EventNotFoundException {
         Event event = eventRepository.findByUuid(uuid);
         if (event == null) {
@@ -143,19 +336,29 @@ public class EventService {
         if (event.getMaxParticipants() > eventForm.getMaxParticipants()) {
             clearParticipants = true;
         }
+        boolean nameChanged = !Objects.equals(event.getName(), eventForm.getName());
         event.setName(eventForm.getName());
         event.setDescription(eventForm.getDescription());
         event.setEventDate(eventForm.getEventDate());
         event.setMaxParticipants(eventForm.getMaxParticipants());
-        if (clearParticipants) {
-            event.getParticipants().clear();
-        }
         // Not necessary according to my tests, but I'm leaving it in for consistency with join/leave
         event = eventRepository.save(event);
+        if (nameChanged) {
+            eventSearchService.indexEventName(event);
+        }
+        if (clearParticipants) {
+            participantRepository.deleteByEventUuids(Collections.singletonList(uuid));
+            eventRepository.refreshParticipantCount(uuid);
+            event = eventRepository.findByUuid(uuid);
+        }
+        eventChangeService.recordChange(EventChangeType.UPDATED, uuid, event.getGroupUuid());
         return event;
     }
 
-    @Transactional(readOnly = true)
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
     public String getGroupUuid(String uuid) throws EventNotFoundException {
         String groupUuid = eventRepository.findGroupUuidByUuid(uuid);
         if (groupUuid == null) {
@@ -164,78 +367,246 @@ public class EventService {
         return groupUuid;
     }
 
-    @Transactional
+    // Checked in the database, the participants of the event aren't loaded
+    @Retry(name = "EventServiceRead")
+    @CircuitBreaker(name = "EventServiceRead")
+    @Bulkhead(name = "EventServiceRead")
+    @Transactional(readOnly = true, timeout = READ_TIMEOUT)
+    public boolean isParticipant(String uuid, String username) {
+        return participantRepository.existsByEventUuidAndUsername(uuid, username);
+    }
+
+    @Retry(name = "EventServiceWrite")
+    @CircuitBreaker(name = "EventServiceWrite")
+    @Bulkhead(name = "EventServiceWrite")
+    @Transactional(timeout = WRITE_TIMEOUT)
     public Event joinEvent(String uuid, String username) throws EventNotFoundException, EventFullException {
-        Event event = eventRepository.findByUuid(uuid);
-        if (event == null) {
-            throw new EventNotFoundException("Event " + uuid + " not found!");
+        if (participantRepository.existsByEventUuidAndUsername(uuid, username)) {
+            return findEvent(uuid);
         }
-        event.join(username);
-        // This save is necessary here for some reason. Not necessary when clearing that collection though??
-        event = eventRepository.save(event);
+        // Capacity is enforced by the guarded UPDATE, which also serializes concurrent joins on the event row.
+        // A concurrent duplicate join is rejected by the (event_uuid, username) constraint and rolls back the increment.
+        if (eventRepository.incrementParticipantCount(uuid) == 0) {
+            if (!eventRepository.existsById(uuid)) {
+                throw new EventNotFoundException("Event " + uuid + " not found!");
+            }
+            throw new EventFullException("Event " + uuid + " is already full!");
+        }
+        Event event = findEvent(uuid);
+        event.getParticipantMap().put(username, participantRepository.save(new Participant(event, username)));
+        eventChangeService.recordChange(EventChangeType.JOINED, uuid, event.getGroupUuid());
         return event;
     }
 
-    @Transactional
+    @Retry(name = "EventServiceWrite")
+    @CircuitBreaker(name = "EventServiceWrite")
+    @Bulkhead(name = "EventServiceWrite")
+    @Transactional(timeout = WRITE_TIMEOUT)
     public Event leaveEvent(String uuid, String username) throws EventNotFoundException {
-        Event event = eventRepository.findByUuid(uuid);
-        if (event == null) {
-            throw new EventNotFoundException("Event " + uuid + " not found!");
+        boolean left = participantRepository.deleteByEventUuidAndUsername(uuid, username) > 0;
+        if (left) {
+            eventRepository.decrementParticipantCount(uuid);
+        }
+        Event event = findEvent(uuid);
+        if (left) {
+            eventChangeService.recordChange(EventChangeType.LEFT, uuid, event.getGroupUuid());
         }
-        event.leave(username);
-        // This save is necessary here for some reason. Not necessary when clearing that collection though??
-        eventRepository.save(event);
         return event;
     }
 
-    @Transactional
-    public void removeUserFromEventsByGroupUuid(String groupUuid, String username) {
-        List<Event> events = eventRepository.findByGroupUuid(groupUuid);
-        for (Event event : events) {
-            if (event.checkIfUserIsMember(username)) {
-                event.leave(username);
-                eventRepository.save(event);
+    // Leaves are applied before joins, so they free up seats. Capacity is checked once per event
+    // while its row is locked, which also blocks concurrent single joins and leaves.
+    @Retry(name = "EventServiceWrite")
+    @CircuitBreaker(name = "EventServiceWrite")
+    @Bulkhead(name = "EventServiceWrite")
+    @Transactional(timeout = WRITE_TIMEOUT)
+    public List<ParticipantBatchResult> updateParticipants(List<ParticipantBatchForm> forms) {
+        // One form per event, in a consistent lock order between concurrent batches. Capacity is only
+        // computed once per event, a second form for it would see the count from before the first.
+        Map<String, ParticipantBatchForm> formsByEvent = new TreeMap<>();
+        for (ParticipantBatchForm form : forms) {
+            ParticipantBatchForm merged = formsByEvent.computeIfAbsent(form.getEventUuid(),
+                    eventUuid -> new ParticipantBatchForm(eventUuid, new ArrayList<>(), new ArrayList<>()));
+            merged.getJoin().addAll(form.getJoin());
+            merged.getLeave().addAll(form.getLeave());
+        }
+        List<ParticipantBatchResult> results = new ArrayList<>();
+        for (ParticipantBatchForm form : formsByEvent.values()) {
+            String uuid = form.getEventUuid();
+            Set<String> leaving = new LinkedHashSet<>(form.getLeave());
+            Set<String> joining = new LinkedHashSet<>(form.getJoin());
+            Event event = eventRepository.findByUuidForUpdate(uuid);
+            if (event == null) {
+                addResults(results, uuid, leaving, ParticipantOutcome.EVENT_NOT_FOUND);
+                addResults(results, uuid, joining, ParticipantOutcome.EVENT_NOT_FOUND);
+                continue;
+            }
+
+            Set<String> members = new HashSet<>(participantRepository.findUsernamesByEventUuid(uuid));
+            List<String> leavingMembers = new ArrayList<>();
+            for (String username : leaving) {
+                if (members.remove(username)) {
+                    leavingMembers.add(username);
+                    results.add(new ParticipantBatchResult(uuid, username, ParticipantOutcome.LEFT));
+                } else {
+                    results.add(new ParticipantBatchResult(uuid, username, ParticipantOutcome.NOT_MEMBER));
+                }
+            }
+            int left = 0;
+            for (int i = 0; i < leavingMembers.size(); i += MAX_IN_PARAMETERS) {
+                left += participantRepository.deleteByEventUuidAndUsernameIn(uuid,
+                        leavingMembers.subList(i, Math.min(i + MAX_IN_PARAMETERS, leavingMembers.size())));
+            }
+
+            int freeSeats = event.getMaxParticipants() - (event.getParticipantCount() - left);
+            List<Participant> newParticipants = new ArrayList<>();
+            for (String username : joining) {
+                if (members.contains(username)) {
+                    results.add(new ParticipantBatchResult(uuid, username, ParticipantOutcome.ALREADY_MEMBER));
+                } else if (newParticipants.size() >= freeSeats) {
+                    results.add(new ParticipantBatchResult(uuid, username, ParticipantOutcome.FULL));
+                } else {
+                    newParticipants.add(new Participant(event, username));
+                    results.add(new ParticipantBatchResult(uuid, username, ParticipantOutcome.JOINED));
+                }
+            }
+            // Inserted in JDBC batches, see hibernate.jdbc.batch_size
+            participantRepository.saveAll(newParticipants);
+
+            if (left > 0 || !newParticipants.isEmpty()) {
+                eventRepository.addToParticipantCount(uuid, newParticipants.size() - left);
+                eventChangeService.recordChange(EventChangeType.PARTICIPANTS_UPDATED, uuid, event.getGroupUuid());
             }
         }
+        return results;
     }
 
-    @Transactional
-    public void deleteEvents(String[] uuids) {
-        eventRepository.deleteByUuidIn(Arrays.asList(uuids));
+    @Retry(name = "EventServiceWrite")
+    @CircuitBreaker(name = "EventServiceWrite")
+    @Bulkhead(name = "EventServiceWrite")
+    @Transactional(timeout = WRITE_TIMEOUT)
+    public int removeUserFromEventsByGroupUuid(String groupUuid, String username) {
+        return removeUserFromEventsByGroupUuids(new String[]{groupUuid}, username);
     }
 
-    private List<Event> extractUpcomingEvents(List<Event> events) {
-        List<Event> upcomingEvents = new ArrayList<>();
-        for (Event event : events) {
-            if (!event.isHappened() && event.getEventDateObject().isBefore(LocalDateTime.now().plusWeeks(1))) {
-                upcomingEvents.add(event);
+    @Retry(name = "EventServiceWrite")
+    @CircuitBreaker(name = "EventServiceWrite")
+    @Bulkhead(name = "EventServiceWrite")
+    @Transactional(timeout = WRITE_TIMEOUT)
+    public int removeUserFromEventsByGroupUuids(String[] groupUuids, String username) {
+        List<String> groupUuidList = Arrays.asList(groupUuids);
+        int removed = 0;
+        for (int i = 0; i < groupUuidList.size(); i += MAX_IN_PARAMETERS) {
+            List<String> chunk = groupUuidList.subList(i, Math.min(i + MAX_IN_PARAMETERS, groupUuidList.size()));
+            List<Object[]> memberships = participantRepository.findMembershipsByGroupUuidsAndUsername(chunk, username);
+            if (memberships.isEmpty()) {
+                continue;
+            }
+            eventRepository.decrementParticipantCountsOfMember(chunk, username);
+            removed += participantRepository.deleteByGroupUuidsAndUsername(chunk, username);
+            for (Object[] membership : memberships) {
+                eventChangeService.recordChange(EventChangeType.LEFT, (String) membership[0], (String) membership[1]);
             }
         }
-        return upcomingEvents;
+        return removed;
     }
 
-    private Event handleEventExpiration(Event event) {
-        event.checkEventDate();
-        if (event.isExpired()) {
-            eventRepository.delete(event);
-            return null;
-        } else {
-            return event;
+    // Set-based, a few statements per batch. Called per chunk by EventDeletionService and EventExpirationService,
+    // so every chunk commits on its own and locks are held only while it runs. Not behind the request bulkhead,
+    // a rejected chunk would stop a delete halfway, EventDeletionService takes one permit for the whole delete.
+    @Retry(name = "EventServiceWrite")
+    @CircuitBreaker(name = "EventServiceWrite")
+    @Transactional(timeout = WRITE_TIMEOUT)
+    public PurgeResult deleteEventBatch(List<String> uuids, EventChangeType changeType) {
+        List<Object[]> deletedEvents = eventRepository.findGroupUuidsByUuidIn(uuids);
+        int participants = participantRepository.deleteByEventUuids(uuids);
+        int events = eventRepository.deleteByUuids(uuids);
+        for (Object[] row : deletedEvents) {
+            eventChangeService.recordChange(changeType, (String) row[0], (String) row[1]);
+        }
+        return new PurgeResult(events, participants);
+    }
+
+    private void addResults(List<ParticipantBatchResult> results, String uuid, Set<String> usernames,
+                            ParticipantOutcome outcome) {
+        for (String username : usernames) {
+            results.add(new ParticipantBatchResult(uuid, username, outcome));
+        }
+    }
+
+    private Event findEvent(String uuid) throws EventNotFoundException {
+        Event event = eventRepository.findByUuid(uuid);
+        if (event == null) {
+            throw new EventNotFoundException("Event " + uuid + " not found!");
         }
+        return event;
     }
 
-    private List<Event> handleEventExpiration(List<Event> events) {
-        List<Event> eventsToDelete = new ArrayList<>();
-        List<Event> modifiedEvents = new ArrayList<>();
+    private EventCursor getStartCursor(String pageToken, int pageSize) throws InvalidPageRequestException {
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new InvalidPageRequestException("Page size must be between 1 and " + maxPageSize + "!");
+        }
+        // Pages never reach back into expired events, the empty uuid sorts before any real one
+        EventCursor start = new EventCursor(getExpirationDate(), "");
+        if (pageToken == null) {
+            return start;
+        }
+        EventCursor cursor = EventCursor.decode(pageToken);
+        return cursor.getEventDate().isBefore(start.getEventDate()) ? start : cursor;
+    }
+
+    private EventPage toPage(List<Event> events, int pageSize) {
+        checkEventDates(events);
+        String nextPageToken = null;
+        if (events.size() == pageSize) {
+            nextPageToken = EventCursor.after(events.get(events.size() - 1)).encode();
+        }
+        return new EventPage(events, nextPageToken);
+    }
+
+    // Open-in-view is off, the participants have to be loaded before the events leave the transaction.
+    // Batched by @BatchSize on Event.participants.
+    private void checkEventDates(List<Event> events) {
         for (Event event : events) {
             event.checkEventDate();
-            if (event.isExpired()) {
-                eventsToDelete.add(event);
-            } else {
-                modifiedEvents.add(event);
-            }
+            Hibernate.initialize(event.getParticipantMap());
+        }
+    }
+
+    public static String getETag(Event event) {
+        return "\"" + event.getVersion() + "-" + (event.isHappened() ? 1 : 0) + "\"";
+    }
+
+    // Identifies the listed events, not just their number and versions, so replacing an event changes it too
+    public static String getETag(List<Event> events) {
+        List<Event> sortedEvents = new ArrayList<>(events);
+        sortedEvents.sort(Comparator.comparing(Event::getUuid));
+        MessageDigest digest = newETagDigest();
+        for (Event event : sortedEvents) {
+            updateETagDigest(digest, event.getUuid(), event.getVersion(), event.isHappened());
+        }
+        return toETag(events.size(), digest);
+    }
+
+    private static MessageDigest newETagDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        eventRepository.deleteAll(eventsToDelete);
-        return modifiedEvents;
+    }
+
+    private static void updateETagDigest(MessageDigest digest, String uuid, long version, boolean happened) {
+        digest.update(uuid.getBytes(StandardCharsets.UTF_8));
+        digest.update(ByteBuffer.allocate(Long.BYTES + 1).putLong(version).put((byte) (happened ? 1 : 0)).array());
+    }
+
+    private static String toETag(int count, MessageDigest digest) {
+        return "\"" + count + "-" + HexFormat.of().formatHex(digest.digest(), 0, 8) + "\"";
+    }
+
+    // Events older than this are hidden from reads and purged by EventExpirationService
+    public static LocalDateTime getExpirationDate() {
+        return LocalDateTime.now().minusDays(1);
     }
 }
@@ -0,0 +1,65 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.Event;
+import com.agh.EventarzEvents.repositories.EventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Hands events to the writer one at a time straight from a database cursor and detaches each one
+// once it's written, so memory use doesn't depend on the number of events.
+@Service
+public class EventStreamService {
+
+    // SQL Server allows 2100 parameters per statement
+    private static final int MAX_IN_PARAMETERS = 2000;
+
+    private final EventRepository eventRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public EventStreamService(EventRepository eventRepository) {
+        this.eventRepository = eventRepository;
+    }
+
+    public interface EventWriter {
+        void write(Event event) throws IOException;
+    }
+
+    @Transactional(readOnly = true)
+    public void streamEventsByGroupUuid(String groupUuid, EventWriter writer) throws IOException {
+        try (Stream<Event> events = eventRepository.streamByGroupUuid(groupUuid, EventService.getExpirationDate())) {
+            writeAll(events, writer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamEventsByUuidList(String[] uuids, EventWriter writer) throws IOException {
+        List<String> uuidList = Arrays.asList(uuids);
+        for (int i = 0; i < uuidList.size(); i += MAX_IN_PARAMETERS) {
+            List<String> chunk = uuidList.subList(i, Math.min(i + MAX_IN_PARAMETERS, uuidList.size()));
+            try (Stream<Event> events = eventRepository.streamByUuidIn(chunk, EventService.getExpirationDate())) {
+                writeAll(events, writer);
+            }
+        }
+    }
+
+    private void writeAll(Stream<Event> events, EventWriter writer) throws IOException {
+        Iterator<Event> iterator = events.iterator();
+        while (iterator.hasNext()) {
+            Event event = iterator.next();
+            event.checkEventDate();
+            writer.write(event);
+            // Cascades to the participants
+            entityManager.detach(event);
+        }
+    }
+}
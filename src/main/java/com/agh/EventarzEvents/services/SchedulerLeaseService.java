@@ -0,0 +1,44 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.SchedulerLease;
+import com.agh.EventarzEvents.repositories.SchedulerLeaseRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Leases are rows in scheduler_leases, every instance of the service competes for the same row.
+// A lease that isn't released, for example because its holder died, runs out after its duration.
+@Service
+public class SchedulerLeaseService {
+
+    private final SchedulerLeaseRepository schedulerLeaseRepository;
+    private final String owner = UUID.randomUUID().toString();
+
+    public SchedulerLeaseService(SchedulerLeaseRepository schedulerLeaseRepository) {
+        this.schedulerLeaseRepository = schedulerLeaseRepository;
+    }
+
+    // Commits on its own so other instances see the lease while the job runs.
+    // Two instances inserting the first row at once fail one of them on the primary key, which throws.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean tryAcquire(String name, Duration duration) {
+        LocalDateTime now = LocalDateTime.now();
+        if (schedulerLeaseRepository.acquire(name, owner, now, now.plus(duration)) > 0) {
+            return true;
+        }
+        if (schedulerLeaseRepository.existsById(name)) {
+            return false;
+        }
+        schedulerLeaseRepository.save(new SchedulerLease(name, now.plus(duration), owner));
+        return true;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String name) {
+        schedulerLeaseRepository.release(name, owner, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,7 @@
+-- Scheduled jobs that must run on one instance at a time take a lease row before they start
+CREATE TABLE scheduler_leases (
+    name         VARCHAR(64)  NOT NULL,
+    locked_until DATETIME2    NOT NULL,
+    locked_by    VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_scheduler_leases PRIMARY KEY (name)
+);
@@ -0,0 +1,28 @@
+-- Schema as it was generated by hibernate.ddl-auto: update. Existing databases are baselined at this version.
+CREATE TABLE events (
+    uuid               VARCHAR(255) NOT NULL,
+    description        VARCHAR(255),
+    event_date         VARCHAR(255),
+    group_uuid         VARCHAR(255),
+    max_participants   INT          NOT NULL,
+    name               VARCHAR(255),
+    organizer_username VARCHAR(255),
+    published_date     VARCHAR(255),
+    CONSTRAINT pk_events PRIMARY KEY (uuid)
+);
+
+CREATE TABLE participants (
+    uuid       VARCHAR(255) NOT NULL,
+    username   VARCHAR(255),
+    event_uuid VARCHAR(255),
+    CONSTRAINT pk_participants PRIMARY KEY (uuid),
+    CONSTRAINT fk_participants_event FOREIGN KEY (event_uuid) REFERENCES events (uuid)
+);
+
+CREATE TABLE events_participants (
+    event_uuid        VARCHAR(255) NOT NULL,
+    participants_uuid VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_events_participants_participant UNIQUE (participants_uuid),
+    CONSTRAINT fk_events_participants_event FOREIGN KEY (event_uuid) REFERENCES events (uuid),
+    CONSTRAINT fk_events_participants_participant FOREIGN KEY (participants_uuid) REFERENCES participants (uuid)
+);
@@ -0,0 +1,5 @@
+-- Event.participants is now mapped by participants.event_uuid, which was always populated alongside this table.
+-- The join table only duplicated that link and blocked set-based deletes of participants.
+DROP TABLE IF EXISTS events_participants;
+
+CREATE INDEX ix_participants_event_uuid ON participants (event_uuid);
@@ -0,0 +1,25 @@
+-- event_date and published_date were stored as 'dd-MM-yyyy HH:mm' strings
+ALTER TABLE events ADD event_date_value DATETIME2;
+ALTER TABLE events ADD published_date_value DATETIME2;
+
+UPDATE events
+SET event_date_value     = TRY_CONVERT(DATETIME2, SUBSTRING(event_date, 7, 4) + '-' + SUBSTRING(event_date, 4, 2) + '-'
+                                       + SUBSTRING(event_date, 1, 2) + 'T' + SUBSTRING(event_date, 12, 5) + ':00', 126),
+    -- The published date was never parsed by the application, so it's not guaranteed to be well formed
+    published_date_value = TRY_CONVERT(DATETIME2, SUBSTRING(published_date, 7, 4) + '-' + SUBSTRING(published_date, 4, 2) + '-'
+                                       + SUBSTRING(published_date, 1, 2) + 'T' + SUBSTRING(published_date, 12, 5) + ':00', 126);
+
+-- Event dates came from user input through the old form too, one that doesn't parse would fail the NOT NULL below.
+-- Those fall back to the published date, or to a date old enough for the expiration sweep to remove the event.
+UPDATE events
+SET event_date_value = COALESCE(published_date_value, CONVERT(DATETIME2, '1900-01-01T00:00:00', 126))
+WHERE event_date_value IS NULL;
+
+ALTER TABLE events DROP COLUMN event_date;
+ALTER TABLE events DROP COLUMN published_date;
+EXEC sp_rename 'events.event_date_value', 'event_date', 'COLUMN';
+EXEC sp_rename 'events.published_date_value', 'published_date', 'COLUMN';
+ALTER TABLE events ALTER COLUMN event_date DATETIME2 NOT NULL;
+
+CREATE INDEX ix_events_event_date ON events (event_date);
+CREATE INDEX ix_events_group_uuid_event_date ON events (group_uuid, event_date);
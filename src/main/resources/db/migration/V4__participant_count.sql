@@ -0,0 +1,12 @@
+ALTER TABLE events ADD participant_count INT NOT NULL CONSTRAINT df_events_participant_count DEFAULT 0;
+
+-- Joining twice used to add a second participant row for the same user
+DELETE FROM participants
+WHERE uuid NOT IN (SELECT MIN(uuid) FROM participants GROUP BY event_uuid, username);
+
+UPDATE events
+SET participant_count = (SELECT COUNT(*) FROM participants p WHERE p.event_uuid = events.uuid);
+
+-- Covers lookups by event_uuid as well
+ALTER TABLE participants ADD CONSTRAINT uk_participants_event_username UNIQUE (event_uuid, username);
+DROP INDEX ix_participants_event_uuid ON participants;
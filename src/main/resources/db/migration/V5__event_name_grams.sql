@@ -0,0 +1,22 @@
+CREATE TABLE event_name_grams (
+    uuid       VARCHAR(255) NOT NULL,
+    event_uuid VARCHAR(255) NOT NULL,
+    gram       VARCHAR(3)   NOT NULL,
+    CONSTRAINT pk_event_name_grams PRIMARY KEY (uuid),
+    CONSTRAINT fk_event_name_grams_event FOREIGN KEY (event_uuid) REFERENCES events (uuid) ON DELETE CASCADE
+);
+
+CREATE INDEX ix_event_name_grams_gram ON event_name_grams (gram, event_uuid);
+CREATE INDEX ix_event_name_grams_event_uuid ON event_name_grams (event_uuid);
+
+-- Same grams as EventSearchService.extractGrams: up to 3 characters starting at every position of the name
+WITH positions AS (
+    SELECT TOP (255) ROW_NUMBER() OVER (ORDER BY (SELECT NULL)) AS position
+    FROM sys.all_columns
+)
+INSERT INTO event_name_grams (uuid, event_uuid, gram)
+SELECT LOWER(REPLACE(CONVERT(VARCHAR(36), NEWID()), '-', '')), grams.event_uuid, grams.gram
+FROM (SELECT DISTINCT e.uuid AS event_uuid, LOWER(SUBSTRING(e.name, p.position, 3)) AS gram
+      FROM events e
+               -- LEN ignores trailing spaces, the application makes grams from them as well
+               JOIN positions p ON p.position <= LEN(e.name + 'x') - 1) grams;
@@ -0,0 +1,10 @@
+CREATE TABLE event_changes (
+    id         BIGINT IDENTITY NOT NULL,
+    type       VARCHAR(16)     NOT NULL,
+    event_uuid VARCHAR(255),
+    group_uuid VARCHAR(255),
+    created_at DATETIME2       NOT NULL,
+    CONSTRAINT pk_event_changes PRIMARY KEY (id)
+);
+
+CREATE INDEX ix_event_changes_created_at ON event_changes (created_at);
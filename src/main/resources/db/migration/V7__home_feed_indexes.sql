@@ -0,0 +1,2 @@
+CREATE INDEX ix_events_organizer_username_event_date ON events (organizer_username, event_date);
+CREATE INDEX ix_participants_username_event_uuid ON participants (username, event_uuid);
@@ -0,0 +1,5 @@
+ALTER TABLE events ADD version BIGINT NOT NULL CONSTRAINT df_events_version DEFAULT 0;
+
+-- Group ETags aggregate the versions without touching the table
+DROP INDEX ix_events_group_uuid_event_date ON events;
+CREATE INDEX ix_events_group_uuid_event_date ON events (group_uuid, event_date) INCLUDE (version);
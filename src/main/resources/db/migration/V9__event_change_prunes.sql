@@ -0,0 +1,7 @@
+-- Highest change id removed by each prune, feed consumers behind it have to reload their state
+CREATE TABLE event_change_prunes (
+    id             BIGINT IDENTITY NOT NULL,
+    pruned_through BIGINT          NOT NULL,
+    pruned_at      DATETIME2       NOT NULL,
+    CONSTRAINT pk_event_change_prunes PRIMARY KEY (id)
+);
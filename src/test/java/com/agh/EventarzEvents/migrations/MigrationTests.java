@@ -0,0 +1,88 @@
+package com.agh.EventarzEvents.migrations;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MSSQLServerContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs the Flyway migrations against SQL Server, the embedded profile generates its schema from the entities
+// and never executes them. Hibernate validates the entities against the migrated schema when the context starts.
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.database-platform=org.hibernate.dialect.SQLServerDialect"
+})
+@ActiveProfiles("embedded")
+@Testcontainers(disabledWithoutDocker = true)
+class MigrationTests {
+
+    @Container
+    private static final MSSQLServerContainer<?> sqlServer =
+            new MSSQLServerContainer<>("mcr.microsoft.com/mssql/server:2022-latest").acceptLicense();
+
+    @Autowired
+    private Flyway flyway;
+
+    // Every test gets its own database, master isn't empty and Flyway would baseline it instead of migrating
+    @DynamicPropertySource
+    static void sqlServerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> createDatabase("eventarz_events"));
+        registry.add("spring.datasource.username", sqlServer::getUsername);
+        registry.add("spring.datasource.password", sqlServer::getPassword);
+    }
+
+    @Test
+    void migrationsMatchEntities() {
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void malformedEventDatesDoNotFailMigration() {
+        String url = createDatabase("eventarz_event_dates");
+        Flyway legacy = Flyway.configure()
+                .dataSource(url, sqlServer.getUsername(), sqlServer.getPassword())
+                .target("2")
+                .load();
+        legacy.migrate();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, sqlServer.getUsername(), sqlServer.getPassword()));
+        String insert = "INSERT INTO events (uuid, name, description, max_participants, organizer_username, " +
+                "group_uuid, event_date, published_date) VALUES (?, 'Event', '', 10, 'organizer', 'group', ?, ?)";
+        jdbcTemplate.update(insert, "parsed", "24-12-2030 18:00", "01-12-2030 09:30");
+        jdbcTemplate.update(insert, "published", "tomorrow", "01-12-2030 09:30");
+        jdbcTemplate.update(insert, "unparsed", "tomorrow", "today");
+
+        Flyway.configure()
+                .dataSource(url, sqlServer.getUsername(), sqlServer.getPassword())
+                .load()
+                .migrate();
+
+        List<LocalDateTime> eventDates = jdbcTemplate.queryForList(
+                "SELECT event_date FROM events ORDER BY uuid", LocalDateTime.class);
+        assertEquals(List.of(
+                LocalDateTime.of(2030, 12, 24, 18, 0),
+                LocalDateTime.of(2030, 12, 1, 9, 30),
+                LocalDateTime.of(1900, 1, 1, 0, 0)
+        ), eventDates);
+    }
+
+    private static String createDatabase(String name) {
+        JdbcTemplate master = new JdbcTemplate(new DriverManagerDataSource(
+                sqlServer.getJdbcUrl(), sqlServer.getUsername(), sqlServer.getPassword()));
+        master.execute("IF DB_ID('" + name + "') IS NULL CREATE DATABASE " + name);
+        return sqlServer.getJdbcUrl() + ";databaseName=" + name;
+    }
+}
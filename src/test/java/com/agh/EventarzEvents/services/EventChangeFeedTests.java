@@ -0,0 +1,117 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.EventChange;
+import com.agh.EventarzEvents.model.EventChangeFeed;
+import com.agh.EventarzEvents.model.EventChangePrune;
+import com.agh.EventarzEvents.model.EventChangeType;
+import com.agh.EventarzEvents.model.EventForm;
+import com.agh.EventarzEvents.repositories.EventChangePruneRepository;
+import com.agh.EventarzEvents.repositories.EventChangeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class EventChangeFeedTests {
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventChangeFeedService eventChangeFeedService;
+
+    @Autowired
+    private EventChangeRepository eventChangeRepository;
+
+    @Autowired
+    private EventChangePruneRepository eventChangePruneRepository;
+
+    @Test
+    void mutationsAppendChangesToTheFeed() {
+        long after = getLatestId();
+        String uuid = eventService.createEvent(createEventForm()).getUuid();
+        eventService.joinEvent(uuid, "member");
+        eventService.leaveEvent(uuid, "member");
+        eventService.deleteEventBatch(Collections.singletonList(uuid), EventChangeType.EXPIRED);
+
+        EventChangeFeed feed = eventChangeFeedService.readChanges(after, after, EventChangeFeedService.MAX_CHANGES);
+        List<EventChangeType> types = feed.getChanges().stream()
+                .filter(change -> uuid.equals(change.getEventUuid()))
+                .map(EventChange::getType)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(EventChangeType.CREATED, EventChangeType.JOINED, EventChangeType.LEFT,
+                EventChangeType.EXPIRED), types);
+        // Nothing has settled yet, the cursor stays put so the changes are delivered again
+        assertEquals(after, feed.getCursor());
+        assertTrue(feed.getLastId() > after);
+    }
+
+    @Test
+    void longPollReturnsOnceAChangeIsCommitted() throws Exception {
+        long after = getLatestId();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<EventChangeFeed> poll = executor.submit(() ->
+                    eventChangeFeedService.waitForChanges(after, after, EventChangeFeedService.MAX_CHANGES));
+            Thread.sleep(200);
+            String uuid = eventService.createEvent(createEventForm()).getUuid();
+
+            EventChangeFeed feed = poll.get(10, TimeUnit.SECONDS);
+            assertTrue(feed.getChanges().stream().anyMatch(change -> uuid.equals(change.getEventUuid())));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void readsPastAFullPageOfDeliveredChanges() {
+        long after = getLatestId();
+        for (int i = 0; i < 3; i++) {
+            eventService.createEvent(createEventForm());
+        }
+
+        EventChangeFeed first = eventChangeFeedService.readChanges(after, after, 2);
+        assertEquals(2, first.getChanges().size());
+        EventChangeFeed second = eventChangeFeedService.readChanges(first.getCursor(), first.getLastId(), 2);
+        assertTrue(second.getChanges().stream().allMatch(change -> change.getId() > first.getLastId()));
+        assertTrue(second.getLastId() > first.getLastId());
+        // The delivered changes haven't settled, the cursor still stays behind them
+        assertEquals(after, second.getCursor());
+    }
+
+    @Test
+    void resetsOnlyConsumersBehindThePrunedChanges() {
+        eventService.createEvent(createEventForm());
+        long prunedThrough = getLatestId();
+        eventChangePruneRepository.save(new EventChangePrune(prunedThrough));
+
+        assertTrue(eventChangeFeedService.readChanges(prunedThrough - 1, prunedThrough - 1, 10).isReset());
+        assertFalse(eventChangeFeedService.readChanges(prunedThrough, prunedThrough, 10).isReset());
+    }
+
+    private long getLatestId() {
+        Long latestId = eventChangeRepository.findLatestId();
+        return latestId == null ? 0 : latestId;
+    }
+
+    private EventForm createEventForm() {
+        return new EventForm("feed-group", "Change feed test", "", 10,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now(), "organizer", false);
+    }
+}
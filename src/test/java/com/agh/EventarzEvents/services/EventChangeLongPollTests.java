@@ -0,0 +1,75 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.EventForm;
+import com.agh.EventarzEvents.repositories.EventChangeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// More waiting long polls than pooled connections, none of them may hold on to one
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=2000",
+        "eventarz.changes.long-poll-timeout=PT10S"
+})
+@ActiveProfiles("embedded")
+class EventChangeLongPollTests {
+
+    private static final int LONG_POLLS = 12;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventChangeRepository eventChangeRepository;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void waitingLongPollsDoNotExhaustTheConnectionPool() throws Exception {
+        String groupUuid = eventService.createEvent(new EventForm("long-poll-group", "Long poll test", "", 10,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now(), "organizer", false)).getGroupUuid();
+        long latestId = eventChangeRepository.findLatestId();
+
+        List<CompletableFuture<HttpResponse<String>>> polls = new ArrayList<>();
+        for (int i = 0; i < LONG_POLLS; i++) {
+            polls.add(httpClient.sendAsync(get("/events/changes?after=" + latestId), HttpResponse.BodyHandlers.ofString()));
+        }
+        Thread.sleep(1000);
+        assertFalse(polls.stream().anyMatch(CompletableFuture::isDone));
+
+        for (int i = 0; i < 3; i++) {
+            HttpResponse<String> response = httpClient.send(get("/events?groupUuid=" + groupUuid),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+        }
+
+        for (CompletableFuture<HttpResponse<String>> poll : polls) {
+            assertEquals(200, poll.get(30, TimeUnit.SECONDS).statusCode());
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30)).GET().build();
+    }
+}
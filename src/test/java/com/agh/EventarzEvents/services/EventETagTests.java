@@ -0,0 +1,45 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.EventChangeType;
+import com.agh.EventarzEvents.model.EventForm;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class EventETagTests {
+
+    @Autowired
+    private EventService eventService;
+
+    @Test
+    void replacingAnEventChangesTheGroupETag() {
+        String groupUuid = UUID.randomUUID().toString();
+        String replaced = eventService.createEvent(createEventForm(groupUuid, "Replaced")).getUuid();
+        eventService.createEvent(createEventForm(groupUuid, "Kept"));
+        String before = eventService.getGroupETag(groupUuid);
+        assertEquals(before, EventService.getETag(eventService.getEventsByGroupUuid(groupUuid)));
+
+        // Same event count, versions and dates, only the identity of one event differs
+        eventService.deleteEventBatch(Collections.singletonList(replaced), EventChangeType.DELETED);
+        eventService.createEvent(createEventForm(groupUuid, "Replacement"));
+
+        String after = eventService.getGroupETag(groupUuid);
+        assertNotEquals(before, after);
+        assertEquals(after, EventService.getETag(eventService.getEventsByGroupUuid(groupUuid)));
+    }
+
+    private EventForm createEventForm(String groupUuid, String name) {
+        return new EventForm(groupUuid, name, "", 10, LocalDateTime.now().plusDays(1), LocalDateTime.now(),
+                "organizer", false);
+    }
+}
@@ -0,0 +1,44 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.model.Event;
+import com.agh.EventarzEvents.model.EventForm;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class EventSearchServiceTests {
+
+    @Autowired
+    private EventService eventService;
+
+    @Test
+    void bestMatchesWinOverEarlierSubstringMatches() {
+        String term = "q" + UUID.randomUUID().toString().substring(0, 8);
+        // More substring matches than the limit, all of them sooner than the better matches
+        for (int i = 0; i < 10; i++) {
+            createEvent("Weekly " + term + "ish meetup", LocalDateTime.now().plusDays(1));
+        }
+        createEvent(term + " finals", LocalDateTime.now().plusDays(3));
+        createEvent(term, LocalDateTime.now().plusDays(2));
+
+        List<Event> events = eventService.getEventsByName(term.toUpperCase(), 2);
+
+        assertEquals(2, events.size());
+        assertEquals(term, events.get(0).getName());
+        assertEquals(term + " finals", events.get(1).getName());
+    }
+
+    private void createEvent(String name, LocalDateTime eventDate) {
+        eventService.createEvent(new EventForm("search-group", name, "", 10, eventDate, LocalDateTime.now(),
+                "organizer", false));
+    }
+}
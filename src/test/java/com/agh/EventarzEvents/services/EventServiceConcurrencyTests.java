@@ -0,0 +1,122 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.exceptions.EventFullException;
+import com.agh.EventarzEvents.model.EventForm;
+import com.agh.EventarzEvents.model.ParticipantBatchForm;
+import com.agh.EventarzEvents.model.ParticipantBatchResult;
+import com.agh.EventarzEvents.model.ParticipantOutcome;
+import com.agh.EventarzEvents.repositories.EventRepository;
+import com.agh.EventarzEvents.repositories.ParticipantRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class EventServiceConcurrencyTests {
+
+    private static final int MAX_PARTICIPANTS = 50;
+    private static final int JOINERS = 500;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private ParticipantRepository participantRepository;
+
+    @Test
+    void parallelJoinsDoNotOverbookEvent() throws Exception {
+        EventForm eventForm = new EventForm("group", "Concurrency test", "", MAX_PARTICIPANTS,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now(), "organizer", false);
+        String uuid = eventService.createEvent(eventForm).getUuid();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger joined = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < JOINERS; i++) {
+            String username = "user" + i;
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    eventService.joinEvent(uuid, username);
+                    joined.incrementAndGet();
+                } catch (EventFullException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(MAX_PARTICIPANTS, joined.get());
+        assertEquals(JOINERS - MAX_PARTICIPANTS, rejected.get());
+        assertEquals(MAX_PARTICIPANTS, participantRepository.countByEventUuid(uuid));
+        assertEquals(MAX_PARTICIPANTS, eventRepository.findByUuid(uuid).getParticipantCount());
+    }
+
+    @Test
+    void joiningTwiceKeepsOneMembership() {
+        EventForm eventForm = new EventForm("group", "Double join test", "", 5,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now(), "organizer", false);
+        String uuid = eventService.createEvent(eventForm).getUuid();
+
+        eventService.joinEvent(uuid, "user");
+        eventService.joinEvent(uuid, "user");
+
+        assertEquals(1, participantRepository.countByEventUuid(uuid));
+        assertEquals(1, eventRepository.findByUuid(uuid).getParticipantCount());
+    }
+
+    @Test
+    void joiningBumpsTheVersionOnce() {
+        EventForm eventForm = new EventForm("group", "Version test", "", 5,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now(), "organizer", false);
+        String uuid = eventService.createEvent(eventForm).getUuid();
+        long version = eventRepository.findByUuid(uuid).getVersion();
+
+        eventService.joinEvent(uuid, "user");
+
+        assertEquals(version + 1, eventRepository.findByUuid(uuid).getVersion());
+    }
+
+    @Test
+    void batchWithDuplicatedEventDoesNotOverbookEvent() {
+        EventForm eventForm = new EventForm("group", "Batch test", "", 2,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now(), "organizer", false);
+        String uuid = eventService.createEvent(eventForm).getUuid();
+
+        List<ParticipantBatchResult> results = eventService.updateParticipants(Arrays.asList(
+                new ParticipantBatchForm(uuid, Arrays.asList("user1", "user2"), Collections.emptyList()),
+                new ParticipantBatchForm(uuid, Arrays.asList("user3", "user4"), Collections.emptyList())));
+
+        assertEquals(2, results.stream().filter(result -> result.getOutcome() == ParticipantOutcome.JOINED).count());
+        assertEquals(2, results.stream().filter(result -> result.getOutcome() == ParticipantOutcome.FULL).count());
+        assertEquals(2, participantRepository.countByEventUuid(uuid));
+        assertEquals(2, eventRepository.findByUuid(uuid).getParticipantCount());
+    }
+}
@@ -0,0 +1,101 @@
+package com.agh.EventarzEvents.services;
+
+import com.agh.EventarzEvents.config.ReadReplicaRoutingDataSource;
+import com.agh.EventarzEvents.exceptions.EventNotFoundException;
+import com.agh.EventarzEvents.model.Event;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two in-memory H2 databases stand in for the primary and the replica, DATABASE() tells which one was hit.
+// Nothing replicates between them, a row inserted only into the replica shows where EventService reads went.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "eventarz.datasource.replicas[0].jdbc-url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "eventarz.datasource.replicas[0].username=sa",
+        "eventarz.datasource.replicas[0].maximum-pool-size=2",
+        "eventarz.datasource.replica-check-interval=PT1H"
+})
+@ActiveProfiles("embedded")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReadReplicaRoutingTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private EventService eventService;
+
+    private JdbcTemplate replicaJdbcTemplate;
+
+    // The replica gets the schema Hibernate created on the primary
+    @BeforeEach
+    void createReplicaSchema() {
+        replicaJdbcTemplate = new JdbcTemplate(routingDataSource.getReplicas().get("replica-0"));
+        replicaJdbcTemplate.execute("DROP ALL OBJECTS");
+        for (String statement : jdbcTemplate.queryForList("SCRIPT NODATA", String.class)) {
+            replicaJdbcTemplate.execute(statement);
+        }
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertTrue(getDatabase(true).contains("replica"));
+        assertTrue(getDatabase(false).contains("primary"));
+        assertTrue(jdbcTemplate.queryForObject("SELECT DATABASE()", String.class).toLowerCase().contains("primary"));
+    }
+
+    @Test
+    void eventServiceReadsComeFromTheReplica() {
+        replicaJdbcTemplate.update("INSERT INTO events (uuid, name, description, max_participants, event_date, "
+                        + "published_date, participant_count, version, organizer_username, group_uuid) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, 0, 0, ?, ?)",
+                "replica-event", "Replicated", "", 10, LocalDateTime.now().plusDays(1), LocalDateTime.now(),
+                "organizer", "replica-group");
+
+        List<Event> events = eventService.getEventsByUuidList(new String[]{"replica-event"});
+        assertEquals(1, events.size());
+        assertEquals("Replicated", events.get(0).getName());
+        // Cache fills read from the primary, which doesn't have the row
+        assertThrows(EventNotFoundException.class, () -> eventService.getEventByUuid("replica-event"));
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaIsDown() {
+        ((HikariDataSource) routingDataSource.getReplicas().get("replica-0")).close();
+
+        assertTrue(getDatabase(true).contains("primary"));
+        assertEquals(0, routingDataSource.getHealthyReplicas().size());
+
+        routingDataSource.checkReplicas();
+        assertEquals(0, routingDataSource.getHealthyReplicas().size());
+        assertTrue(getDatabase(true).contains("primary"));
+    }
+
+    private String getDatabase(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                jdbcTemplate.queryForObject("SELECT DATABASE()", String.class).toLowerCase());
+    }
+}